@@ -24,8 +24,10 @@ import org.gradle.api.internal.project.CrossProjectModelAccess
 import org.gradle.api.internal.project.DefaultCrossProjectModelAccess
 import org.gradle.api.internal.project.DefaultDynamicLookupRoutine
 import org.gradle.api.internal.project.DynamicLookupRoutine
+import org.gradle.api.internal.project.ParallelProjectConfigurationTracker
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectRegistry
+import org.gradle.api.internal.project.ProjectState
 import org.gradle.configuration.ProjectsPreparer
 import org.gradle.configuration.ScriptPluginFactory
 import org.gradle.configuration.internal.DynamicCallContextTracker
@@ -38,8 +40,10 @@ import org.gradle.configuration.project.ProjectEvaluator
 import org.gradle.configurationcache.extensions.get
 import org.gradle.configurationcache.fingerprint.ConfigurationCacheFingerprintController
 import org.gradle.configurationcache.flow.FlowServicesProvider
+import org.gradle.configurationcache.problems.DefaultProblemFactory
 import org.gradle.configurationcache.problems.ProblemFactory
 import org.gradle.configurationcache.problems.ProblemsListener
+import org.gradle.configurationcache.problems.PropertyProblem
 import org.gradle.configurationcache.services.ConfigurationCacheEnvironment
 import org.gradle.configurationcache.services.DefaultEnvironment
 import org.gradle.initialization.BuildCancellationToken
@@ -52,6 +56,7 @@ import org.gradle.internal.build.BuildModelController
 import org.gradle.internal.build.BuildModelControllerServices
 import org.gradle.internal.build.BuildState
 import org.gradle.internal.buildtree.BuildModelParameters
+import org.gradle.internal.code.UserCodeApplicationContext
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.model.StateTransitionControllerFactory
 import org.gradle.internal.operations.BuildOperationExecutor
@@ -60,6 +65,7 @@ import org.gradle.internal.service.CachingServiceLocator
 import org.gradle.internal.service.scopes.BuildScopeServices
 import org.gradle.internal.service.scopes.ServiceRegistryFactory
 import org.gradle.invocation.DefaultGradle
+import org.gradle.problems.buildtree.ProblemDiagnosticsFactory
 
 
 class DefaultBuildModelControllerServices(
@@ -80,6 +86,8 @@ class DefaultBuildModelControllerServices(
             }
             if (buildModelParameters.isIsolatedProjects) {
                 registration.addProvider(ConfigurationCacheIsolatedProjectsProvider())
+            } else if (buildModelParameters.isParallelProjectConfiguration) {
+                registration.addProvider(ParallelProjectConfigurationIsolatedProjectsProvider())
             } else {
                 registration.addProvider(VintageIsolatedProjectsProvider())
             }
@@ -171,6 +179,48 @@ class DefaultBuildModelControllerServices(
         }
     }
 
+    private
+    class ParallelProjectConfigurationIsolatedProjectsProvider {
+        fun createCrossProjectModelAccess(
+            projectRegistry: ProjectRegistry<ProjectInternal>,
+            problemsListener: ProblemsListener,
+            problemFactory: ProblemFactory,
+            parallelConfigurationTracker: ParallelProjectConfigurationTracker,
+            dynamicCallProblemReporting: DynamicCallProblemReporting,
+            buildModelParameters: BuildModelParameters
+        ): CrossProjectModelAccess {
+            // Use the isolated projects hooks to hold back a project configured in parallel before it accesses some other project
+            val delegate = VintageIsolatedProjectsProvider().createCrossProjectModelAccess(projectRegistry)
+            val coupledProjectsListener = object : CoupledProjectsListener {
+                override fun onProjectReference(referrer: ProjectState, target: ProjectState) =
+                    parallelConfigurationTracker.onProjectReference(referrer, target)
+            }
+            return ProblemReportingCrossProjectModelAccess(
+                delegate, problemsListener, coupledProjectsListener, problemFactory, dynamicCallProblemReporting, buildModelParameters
+            )
+        }
+
+        fun createProblemFactory(
+            userCodeApplicationContext: UserCodeApplicationContext,
+            problemDiagnosticsFactory: ProblemDiagnosticsFactory
+        ): ProblemFactory =
+            DefaultProblemFactory(userCodeApplicationContext, problemDiagnosticsFactory)
+
+        /**
+         * Accessing another project is not a problem in a vintage build, so the problems are discarded.
+         */
+        fun createProblemsListener(): ProblemsListener =
+            object : ProblemsListener {
+                override fun onProblem(problem: PropertyProblem) = Unit
+            }
+
+        fun createDynamicCallProjectIsolationProblemReporting(dynamicCallContextTracker: DynamicCallContextTracker): DynamicCallProblemReporting =
+            ConfigurationCacheIsolatedProjectsProvider().createDynamicCallProjectIsolationProblemReporting(dynamicCallContextTracker)
+
+        fun createDynamicLookupRoutine(): DynamicLookupRoutine =
+            DefaultDynamicLookupRoutine()
+    }
+
     private
     class VintageIsolatedProjectsProvider {
         fun createCrossProjectModelAccess(
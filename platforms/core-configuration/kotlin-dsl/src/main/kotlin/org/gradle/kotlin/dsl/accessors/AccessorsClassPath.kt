@@ -62,6 +62,8 @@ import org.jetbrains.org.objectweb.asm.signature.SignatureReader
 import org.jetbrains.org.objectweb.asm.signature.SignatureVisitor
 import java.io.Closeable
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 import javax.inject.Inject
 
 
@@ -73,6 +75,13 @@ class ProjectAccessorsClassPathGenerator @Inject internal constructor(
     private val workspaceProvider: KotlinDslWorkspaceProvider
 ) {
 
+    /**
+     * The projects of a build mostly share their compilation classpath and the types of their schemas,
+     * so the accessibility of those types is looked up in the classpath only once per build.
+     */
+    private
+    val typeAccessibilityInfoCache = TypeAccessibilityInfoCache()
+
     fun projectAccessorsClassPath(project: Project, classPath: ClassPath): AccessorsClassPath =
         project.getOrCreateProperty("gradleKotlinDsl.projectAccessorsClassPath") {
             buildAccessorsClassPathFor(project, classPath)
@@ -87,6 +96,7 @@ class ProjectAccessorsClassPathGenerator @Inject internal constructor(
                 project,
                 projectSchema,
                 classPath,
+                typeAccessibilityInfoCache,
                 fileCollectionFactory,
                 inputFingerprinter,
                 workspaceProvider
@@ -114,6 +124,7 @@ class GenerateProjectAccessors(
     private val project: Project,
     private val projectSchema: TypedProjectSchema,
     private val classPath: ClassPath,
+    private val typeAccessibilityInfoCache: TypeAccessibilityInfoCache,
     private val fileCollectionFactory: FileCollectionFactory,
     private val inputFingerprinter: InputFingerprinter,
     private val workspaceProvider: KotlinDslWorkspaceProvider
@@ -133,7 +144,8 @@ class GenerateProjectAccessors(
                 projectSchema,
                 classPath,
                 srcDir = getSourcesOutputDir(workspace),
-                binDir = getClassesOutputDir(workspace)
+                binDir = getClassesOutputDir(workspace),
+                typeAccessibilityInfoCache = typeAccessibilityInfoCache
             )
         }
         return object : UnitOfWork.WorkOutput {
@@ -210,9 +222,10 @@ fun IO.buildAccessorsFor(
     srcDir: File,
     binDir: File?,
     packageName: String = kotlinDslPackageName,
-    format: AccessorFormat = AccessorFormats.default
+    format: AccessorFormat = AccessorFormats.default,
+    typeAccessibilityInfoCache: TypeAccessibilityInfoCache? = null
 ) {
-    val availableSchema = availableProjectSchemaFor(projectSchema, classPath)
+    val availableSchema = availableProjectSchemaFor(projectSchema, classPath, typeAccessibilityInfoCache)
     emitAccessorsFor(
         availableSchema,
         srcDir,
@@ -264,8 +277,8 @@ fun defaultPackageTypesIn(typeStrings: List<String>): List<String> =
 
 
 internal
-fun availableProjectSchemaFor(projectSchema: TypedProjectSchema, classPath: ClassPath) =
-    TypeAccessibilityProvider(classPath).use { accessibilityProvider ->
+fun availableProjectSchemaFor(projectSchema: TypedProjectSchema, classPath: ClassPath, typeAccessibilityInfoCache: TypeAccessibilityInfoCache? = null) =
+    TypeAccessibilityProvider(classPath, typeAccessibilityInfoCache?.forClassPath(classPath) ?: ConcurrentHashMap()).use { accessibilityProvider ->
         projectSchema.map(accessibilityProvider::accessibilityForType)
     }
 
@@ -293,24 +306,43 @@ sealed class InaccessibilityReason {
 }
 
 
-private
+internal
 data class TypeAccessibilityInfo(
     val inaccessibilityReasons: List<InaccessibilityReason>,
     val hasTypeParameter: Boolean = false
 )
 
 
+/**
+ * Accessibility of classes per compilation classpath, shared by the accessor generations of a build.
+ */
+class TypeAccessibilityInfoCache {
+
+    private
+    val infoPerClassPath = ConcurrentHashMap<ClassPath, ConcurrentMap<String, TypeAccessibilityInfo>>()
+
+    internal
+    fun forClassPath(classPath: ClassPath): ConcurrentMap<String, TypeAccessibilityInfo> =
+        infoPerClassPath.computeIfAbsent(classPath) { ConcurrentHashMap() }
+}
+
+
 internal
-class TypeAccessibilityProvider(classPath: ClassPath) : Closeable {
+class TypeAccessibilityProvider(
+    private val classPath: ClassPath,
+    private val typeAccessibilityInfoPerClass: ConcurrentMap<String, TypeAccessibilityInfo> = ConcurrentHashMap()
+) : Closeable {
 
     private
-    val classBytesRepository = ClassBytesRepository(
-        ClassLoaderUtils.getPlatformClassLoader(),
-        classPath.asFiles
-    )
+    val classBytesRepositoryDelegate = lazy {
+        ClassBytesRepository(
+            ClassLoaderUtils.getPlatformClassLoader(),
+            classPath.asFiles
+        )
+    }
 
     private
-    val typeAccessibilityInfoPerClass = mutableMapOf<String, TypeAccessibilityInfo>()
+    val classBytesRepository by classBytesRepositoryDelegate
 
     fun accessibilityForType(type: SchemaType): TypeAccessibility =
         // TODO:accessors cache per SchemaType
@@ -336,9 +368,9 @@ class TypeAccessibilityProvider(classPath: ClassPath) : Closeable {
 
     private
     fun accessibilityInfoFor(className: String): TypeAccessibilityInfo =
-        typeAccessibilityInfoPerClass.computeIfAbsent(className) {
-            loadAccessibilityInfoFor(it)
-        }
+        typeAccessibilityInfoPerClass[className]
+            // Not loaded under computeIfAbsent, so that other projects aren't blocked while the classpath is read
+            ?: loadAccessibilityInfoFor(className).let { typeAccessibilityInfoPerClass.putIfAbsent(className, it) ?: it }
 
     private
     fun loadAccessibilityInfoFor(className: String): TypeAccessibilityInfo {
@@ -378,7 +410,9 @@ class TypeAccessibilityProvider(classPath: ClassPath) : Closeable {
         }
 
     override fun close() {
-        classBytesRepository.close()
+        if (classBytesRepositoryDelegate.isInitialized()) {
+            classBytesRepository.close()
+        }
     }
 }
 
@@ -22,6 +22,8 @@ import kotlinx.metadata.jvm.KotlinClassHeader
 import kotlinx.metadata.jvm.KotlinClassMetadata
 import kotlinx.metadata.jvm.signature
 import org.gradle.api.GradleException
+import org.gradle.internal.classanalysis.AsmConstants.ASM_LEVEL
+import org.gradle.internal.hash.Hasher
 import org.gradle.internal.normalization.java.ApiClassExtractor
 import org.gradle.internal.normalization.java.impl.AnnotationMember
 import org.gradle.internal.normalization.java.impl.ApiMemberWriter
@@ -32,8 +34,10 @@ import org.gradle.internal.normalization.java.impl.InnerClassMember
 import org.gradle.internal.normalization.java.impl.MethodMember
 import org.gradle.internal.normalization.java.impl.MethodStubbingApiMemberAdapter
 import org.gradle.internal.normalization.java.impl.SimpleAnnotationValue
+import org.objectweb.asm.AnnotationVisitor
 import org.objectweb.asm.ClassReader
 import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
 import java.util.Optional
 
 
@@ -44,13 +48,63 @@ class KotlinApiClassExtractor : ApiClassExtractor(
 ) {
 
     override fun extractApiClassFrom(originalClassReader: ClassReader): Optional<ByteArray> {
+        if (isLocalKotlinClass(originalClassReader)) {
+            // Lambdas and anonymous objects declared in a public inline function are copied into the calling scripts,
+            // and there is no telling from the class alone whether its enclosing function is inline
+            return Optional.of(wholeClassFrom(originalClassReader))
+        }
         try {
             return super.extractApiClassFrom(originalClassReader)
+        } catch (e: PublicInlineFunctionException) {
+            // The bodies of public inline functions are copied into the calling scripts, so the whole class is part of the ABI.
+            // This keeps the other classes of the same classpath entry eligible for compile avoidance.
+            return Optional.of(wholeClassFrom(originalClassReader))
         } catch (e: CompileAvoidanceException) {
             val className = originalClassReader.className
             throw CompileAvoidanceException.withClass(className, e)
         }
     }
+
+    override fun appendConfigurationToHasher(hasher: Hasher) {
+        super.appendConfigurationToHasher(hasher)
+        // Bump when the extracted API changes, so that hashes cached by previous versions aren't reused
+        hasher.putInt(2)
+    }
+
+    private
+    fun wholeClassFrom(originalClassReader: ClassReader): ByteArray =
+        ClassWriter(0).also { originalClassReader.accept(it, 0) }.toByteArray()
+
+    private
+    fun isLocalKotlinClass(originalClassReader: ClassReader): Boolean =
+        LocalKotlinClassDetector().also {
+            originalClassReader.accept(it, ClassReader.SKIP_CODE or ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
+        }.isLocalKotlinClass
+}
+
+
+private
+class LocalKotlinClassDetector : ClassVisitor(ASM_LEVEL) {
+
+    private
+    var hasEnclosingMethod = false
+
+    private
+    var hasKotlinMetadata = false
+
+    val isLocalKotlinClass: Boolean
+        get() = hasEnclosingMethod && hasKotlinMetadata
+
+    override fun visitOuterClass(owner: String, name: String?, descriptor: String?) {
+        hasEnclosingMethod = name != null
+    }
+
+    override fun visitAnnotation(descriptor: String, visible: Boolean): AnnotationVisitor? {
+        if (descriptor == "Lkotlin/Metadata;") {
+            hasKotlinMetadata = true
+        }
+        return null
+    }
 }
 
 
@@ -59,6 +113,8 @@ class KotlinApiMemberWriter(apiMemberAdapter: ClassVisitor) : ApiMemberWriter(ap
 
     val kotlinMetadataAnnotationSignature = "Lkotlin/Metadata;"
 
+    val publishedApiAnnotationSignature = "Lkotlin/PublishedApi;"
+
     val inlineFunctions: MutableSet<String> = HashSet()
     val internalFunctions: MutableSet<String> = HashSet()
 
@@ -93,8 +149,9 @@ class KotlinApiMemberWriter(apiMemberAdapter: ClassVisitor) : ApiMemberWriter(ap
 
     override fun writeMethod(method: MethodMember) {
         when {
-            method.isInternal() -> return
-            method.isInline() -> throw CompileAvoidanceException.publicInlineFunction(method)
+            // Internal functions annotated with @PublishedApi can be called from the public inline functions copied into the calling scripts
+            method.isInternal() && !method.isPublishedApi() -> return
+            method.isInline() -> throw PublicInlineFunctionException(method)
             else -> super.writeMethod(method)
         }
     }
@@ -161,14 +218,20 @@ class KotlinApiMemberWriter(apiMemberAdapter: ClassVisitor) : ApiMemberWriter(ap
 
     private
     fun MethodMember.isInline() = inlineFunctions.contains(this.binarySignature())
+
+    private
+    fun MethodMember.isPublishedApi() = annotations.any { it.name == publishedApiAnnotationSignature }
 }
 
 
 internal
-class CompileAvoidanceException(message: String) : GradleException(message) {
+open class CompileAvoidanceException(message: String) : GradleException(message) {
 
     companion object Factory {
-        fun publicInlineFunction(inlineFunction: MethodMember) = CompileAvoidanceException("inline fun ${inlineFunction.name}(): compile avoidance is not supported with public inline functions")
         fun withClass(className: String, e: CompileAvoidanceException) = CompileAvoidanceException("class $className: ${e.message}")
     }
 }
+
+
+private
+class PublicInlineFunctionException(inlineFunction: MethodMember) : CompileAvoidanceException("inline fun ${inlineFunction.name}(): the body of public inline functions is part of the ABI")
@@ -306,26 +306,95 @@ inline fun <T> ignoringOutputOf(action: () -> T): T =
 
 
 private
-inline fun <T> redirectingOutputTo(noinline outputStream: () -> OutputStream, action: () -> T): T =
-    redirecting(System.err, System::setErr, outputStream()) {
-        redirecting(System.out, System::setOut, outputStream()) {
-            action()
+inline fun <T> redirectingOutputTo(noinline outputStream: () -> OutputStream, action: () -> T): T {
+    val out = outputStream()
+    val err = outputStream()
+    CompilerOutputRedirection.start(out, err)
+    try {
+        return action()
+    } finally {
+        CompilerOutputRedirection.finish(out, err)
+    }
+}
+
+
+/**
+ * Redirects what the compiler prints to `System.out` and `System.err`.
+ *
+ * Scripts of different projects can be compiled concurrently, so the standard streams are replaced
+ * only once while any compilation is running and each compiling thread gets its own target streams.
+ * Output of threads that aren't compiling is forwarded to the original streams.
+ */
+@VisibleForTesting
+internal
+object CompilerOutputRedirection {
+
+    private
+    val lock = Any()
+
+    private
+    var activeCompilations = 0
+
+    private
+    var originalOut: PrintStream? = null
+
+    private
+    var originalErr: PrintStream? = null
+
+    private
+    val currentThreadOut = ThreadLocal<OutputStream>()
+
+    private
+    val currentThreadErr = ThreadLocal<OutputStream>()
+
+    fun start(out: OutputStream, err: OutputStream) {
+        currentThreadOut.set(out)
+        currentThreadErr.set(err)
+        synchronized(lock) {
+            if (activeCompilations++ == 0) {
+                val systemOut = System.out
+                val systemErr = System.err
+                originalOut = systemOut
+                originalErr = systemErr
+                System.setOut(PrintStream(PerThreadOutputStream(currentThreadOut, systemOut), true))
+                System.setErr(PrintStream(PerThreadOutputStream(currentThreadErr, systemErr), true))
+            }
+        }
+    }
+
+    fun finish(out: OutputStream, err: OutputStream) {
+        System.out.flush()
+        System.err.flush()
+        currentThreadOut.remove()
+        currentThreadErr.remove()
+        synchronized(lock) {
+            if (--activeCompilations == 0) {
+                System.setOut(originalOut)
+                System.setErr(originalErr)
+                originalOut = null
+                originalErr = null
+            }
         }
+        out.flush()
+        err.flush()
     }
 
+    private
+    class PerThreadOutputStream(
+        private val currentThreadStream: ThreadLocal<OutputStream>,
+        private val original: OutputStream
+    ) : OutputStream() {
 
-private
-inline fun <T> redirecting(
-    stream: PrintStream,
-    set: (PrintStream) -> Unit,
-    to: OutputStream,
-    action: () -> T
-): T = try {
-    set(PrintStream(to, true))
-    action()
-} finally {
-    set(stream)
-    to.flush()
+        private
+        val target: OutputStream
+            get() = currentThreadStream.get() ?: original
+
+        override fun write(b: Int) = target.write(b)
+
+        override fun write(b: ByteArray, off: Int, len: Int) = target.write(b, off, len)
+
+        override fun flush() = target.flush()
+    }
 }
 
 
@@ -41,6 +41,26 @@ class TypeAccessibilityProviderTest : TestWithClassPath() {
         )
     }
 
+    @Test
+    fun `accessibility of classes is shared between providers for the same classpath`() {
+
+        val internalType = SchemaType.of<InternalType>()
+        val classPath = jarClassPathWith(InternalType::class)
+        val cache = TypeAccessibilityInfoCache()
+        TypeAccessibilityProvider(classPath, cache.forClassPath(classPath)).use {
+            it.accessibilityForType(internalType)
+        }
+
+        // the class is no longer there, but its accessibility is known already
+        classPath.asFiles.forEach { it.delete() }
+        assertThat(
+            TypeAccessibilityProvider(classPath, cache.forClassPath(classPath)).use {
+                it.accessibilityForType(internalType)
+            },
+            equalTo(inaccessible(internalType, InaccessibilityReason.NonPublic(internalType.kotlinString)))
+        )
+    }
+
     @Test
     fun `class names from type strings`() {
 
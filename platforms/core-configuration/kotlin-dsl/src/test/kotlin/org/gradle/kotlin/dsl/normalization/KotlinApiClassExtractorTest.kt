@@ -49,8 +49,7 @@ class KotlinApiClassExtractorTest : TestWithTempFiles() {
         ).assertSameApi()
     }
 
-    // test throws until we can detect lambdas in inline functions and treat them as ABI
-    @Test(expected = CompileAvoidanceException::class)
+    @Test
     fun `changes to inline method bodies change generated API class`() {
         givenChangingClass(
             "Foo",
@@ -69,8 +68,7 @@ class KotlinApiClassExtractorTest : TestWithTempFiles() {
         ).assertApiChanged()
     }
 
-    // test throws until we can detect lambdas in inline functions and treat them as ABI
-    @Test(expected = CompileAvoidanceException::class)
+    @Test
     fun `changes to standalone inline method bodies change generated API class`() {
         givenChangingScript(
             "Foo",
@@ -152,6 +150,60 @@ class KotlinApiClassExtractorTest : TestWithTempFiles() {
         ).assertSameApi()
     }
 
+    @Test
+    fun `changes to published internal method signatures change generated API class`() {
+        givenChangingClass(
+            "Foo",
+            """
+                fun foo(): String {
+                    return bar()
+                }
+
+                @PublishedApi
+                internal fun bar(): String {
+                    return "foo"
+                }
+            """,
+            { assertThat(it.instantiateAndCall("foo"), equalTo("foo")) },
+            """
+                fun foo(): String {
+                    return bar("bar")
+                }
+
+                @PublishedApi
+                internal fun bar(value: String): String {
+                    return value
+                }
+            """,
+            { assertThat(it.instantiateAndCall("foo"), equalTo("bar")) }
+        ).assertApiChanged()
+    }
+
+    @Test
+    fun `changes to published internal inline method bodies change generated API class`() {
+        givenChangingClass(
+            "Foo",
+            """
+                @PublishedApi
+                internal inline fun foo(): String {
+                    return "foo"
+                }
+
+                fun bar(): String = foo()
+            """,
+            { assertThat(it.instantiateAndCall("bar"), equalTo("foo")) },
+            """
+                @PublishedApi
+                internal inline fun foo(): String {
+                    return "bar"
+                }
+
+                fun bar(): String = foo()
+            """,
+            { assertThat(it.instantiateAndCall("bar"), equalTo("bar")) }
+        ).assertApiChanged()
+    }
+
     @Test
     fun `API class is unaffected by changes to internal inline method`() {
         givenChangingClass(
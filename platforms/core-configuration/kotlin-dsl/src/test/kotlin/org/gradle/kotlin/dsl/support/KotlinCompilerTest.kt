@@ -19,8 +19,12 @@ package org.gradle.kotlin.dsl.support
 import org.gradle.api.JavaVersion
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.core.IsEqual.equalTo
+import org.hamcrest.core.IsSame.sameInstance
 import org.jetbrains.kotlin.config.JvmTarget
 import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.CountDownLatch
+import kotlin.concurrent.thread
 
 
 class KotlinCompilerTest {
@@ -56,4 +60,41 @@ class KotlinCompilerTest {
             assertThat(javaVersion.toKotlinJvmTarget(), equalTo(JvmTarget.JVM_21))
         }
     }
+
+    @Test
+    fun `compiler output of concurrent compilations is redirected per thread`() {
+        val systemOut = System.out
+        val firstOut = ByteArrayOutputStream()
+        val secondOut = ByteArrayOutputStream()
+        val bothStarted = CountDownLatch(2)
+        val firstPrinted = CountDownLatch(1)
+
+        val first = thread {
+            CompilerOutputRedirection.start(firstOut, ByteArrayOutputStream())
+            try {
+                bothStarted.countDown()
+                bothStarted.await()
+                System.out.print("first")
+            } finally {
+                firstPrinted.countDown()
+                CompilerOutputRedirection.finish(firstOut, ByteArrayOutputStream())
+            }
+        }
+        val second = thread {
+            CompilerOutputRedirection.start(secondOut, ByteArrayOutputStream())
+            try {
+                bothStarted.countDown()
+                firstPrinted.await()
+                System.out.print("second")
+            } finally {
+                CompilerOutputRedirection.finish(secondOut, ByteArrayOutputStream())
+            }
+        }
+        first.join()
+        second.join()
+
+        assertThat(firstOut.toString(), equalTo("first"))
+        assertThat(secondOut.toString(), equalTo("second"))
+        assertThat(System.out, sameInstance(systemOut))
+    }
 }
@@ -17,17 +17,67 @@
 package org.gradle.cache;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
+/**
+ * An in-memory cache where entries are only removed explicitly.
+ *
+ * <p>At most one thread calculates the value for a given key at a time: other threads requesting the same key wait for that calculation and use its result.
+ * Calculations for different keys never wait for each other.</p>
+ */
 public class ManualEvictionInMemoryCache<K, V> implements Cache<K, V> {
     // Use 256 as initial size to start out with enough concurrency.
     private final ConcurrentMap<K, V> map = new ConcurrentHashMap<>(256);
+    private final ConcurrentMap<K, Calculation<V>> calculationsInProgress = new ConcurrentHashMap<>();
 
     @Override
     public V get(K key, Function<? super K, ? extends V> factory) {
-        return map.computeIfAbsent(key, factory);
+        while (true) {
+            V value = map.get(key);
+            if (value != null) {
+                return value;
+            }
+            Calculation<V> calculation = new Calculation<>();
+            Calculation<V> inProgress = calculationsInProgress.putIfAbsent(key, calculation);
+            if (inProgress == null) {
+                return calculate(key, factory, calculation);
+            }
+            if (inProgress.owner == Thread.currentThread()) {
+                throw new IllegalStateException("Recursive calculation of the value for " + key);
+            }
+            try {
+                value = inProgress.result.join();
+                if (value != null) {
+                    return value;
+                }
+            } catch (CompletionException e) {
+                // The calculation failed and nothing was cached: try again, as if it had never been attempted
+            }
+        }
+    }
+
+    private V calculate(K key, Function<? super K, ? extends V> factory, Calculation<V> calculation) {
+        try {
+            // Another thread may have completed the calculation since the value was looked up
+            V value = map.get(key);
+            if (value == null) {
+                value = factory.apply(key);
+                if (value != null) {
+                    map.put(key, value);
+                }
+            }
+            calculation.result.complete(value);
+            return value;
+        } catch (Throwable t) {
+            calculation.result.completeExceptionally(t);
+            throw t;
+        } finally {
+            calculationsInProgress.remove(key, calculation);
+        }
     }
 
     @Override
@@ -47,4 +97,9 @@ public void retainAll(Collection<? extends K> keysToRetain) {
     public void clear() {
         map.clear();
     }
+
+    private static class Calculation<V> {
+        private final Thread owner = Thread.currentThread();
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+    }
 }
@@ -19,9 +19,11 @@ package org.gradle.cache
 import spock.lang.Specification
 import spock.lang.Timeout
 
+import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.function.Supplier
 
 class ManualEvictionInMemoryCacheTest extends Specification {
@@ -58,4 +60,65 @@ class ManualEvictionInMemoryCacheTest extends Specification {
         where:
         concurrency << [8, 16, 32]
     }
+
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    def "calculates the value for a key only once when requested concurrently"() {
+        def concurrency = 8
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def calculations = new AtomicInteger()
+        def cache = new ManualEvictionInMemoryCache<String, String>()
+        def results = new ConcurrentLinkedQueue<String>()
+
+        when:
+        def threads = (1..concurrency).collect {
+            Thread.start {
+                results << cache.get("key", {
+                    calculations.incrementAndGet()
+                    started.countDown()
+                    release.await()
+                    "value"
+                } as Supplier<String>)
+            }
+        }
+        started.await()
+        // Every other thread waits for the calculation in progress
+        while (threads.count { it.state == Thread.State.WAITING } < concurrency) {
+            Thread.sleep(10)
+        }
+        release.countDown()
+        threads*.join()
+
+        then:
+        results as List == ["value"] * concurrency
+        calculations.get() == 1
+    }
+
+    def "calculates the value again after a failed calculation"() {
+        def cache = new ManualEvictionInMemoryCache<String, String>()
+
+        when:
+        cache.get("key", { throw new RuntimeException("broken") } as Supplier<String>)
+
+        then:
+        thrown(RuntimeException)
+        cache.getIfPresent("key") == null
+
+        when:
+        def value = cache.get("key", { "value" } as Supplier<String>)
+
+        then:
+        value == "value"
+        cache.getIfPresent("key") == "value"
+    }
+
+    def "fails on recursive calculation of the same key"() {
+        def cache = new ManualEvictionInMemoryCache<String, String>()
+
+        when:
+        cache.get("key", { cache.get("key", { "value" } as Supplier<String>) } as Supplier<String>)
+
+        then:
+        thrown(IllegalStateException)
+    }
 }
@@ -20,6 +20,7 @@
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector;
 import org.gradle.api.problems.Problems;
 import org.gradle.internal.Factory;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.jvm.toolchain.internal.JavaCompilerFactory;
 import org.gradle.language.base.internal.compile.CompileSpec;
 import org.gradle.language.base.internal.compile.Compiler;
@@ -41,6 +42,8 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
     private final ActionExecutionSpecFactory actionExecutionSpecFactory;
     private Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
     private final Problems problems;
+    private final StandardJavaFileManagerPool fileManagerPool;
+    private final FileHasher fileHasher;
 
     public DefaultJavaCompilerFactory(
         WorkerDirectoryProvider workingDirProvider,
@@ -50,7 +53,9 @@ public DefaultJavaCompilerFactory(
         AnnotationProcessorDetector processorDetector,
         ClassPathRegistry classPathRegistry,
         ActionExecutionSpecFactory actionExecutionSpecFactory,
-        Problems problems
+        Problems problems,
+        StandardJavaFileManagerPool fileManagerPool,
+        FileHasher fileHasher
     ) {
         this.workingDirProvider = workingDirProvider;
         this.workerDaemonFactory = workerDaemonFactory;
@@ -60,6 +65,8 @@ public DefaultJavaCompilerFactory(
         this.classPathRegistry = classPathRegistry;
         this.actionExecutionSpecFactory = actionExecutionSpecFactory;
         this.problems = problems;
+        this.fileManagerPool = fileManagerPool;
+        this.fileHasher = fileHasher;
     }
 
     private Factory<JavaCompiler> getJavaHomeBasedJavaCompilerFactory() {
@@ -89,7 +96,7 @@ private <T extends CompileSpec> Compiler<T> createTargetCompiler(Class<T> type)
         if (ForkingJavaCompileSpec.class.isAssignableFrom(type)) {
             return (Compiler<T>) new DaemonJavaCompiler(workingDirProvider.getWorkingDirectory(), JdkJavaCompiler.class, new Object[]{getJavaHomeBasedJavaCompilerFactory()}, new ProcessIsolatedCompilerWorkerExecutor(workerDaemonFactory, actionExecutionSpecFactory), forkOptionsFactory, classPathRegistry);
         } else {
-            return (Compiler<T>) new JdkJavaCompiler(getJavaHomeBasedJavaCompilerFactory(), problems);
+            return (Compiler<T>) new JdkJavaCompiler(getJavaHomeBasedJavaCompilerFactory(), problems, fileManagerPool, fileHasher);
         }
     }
 }
@@ -22,18 +22,22 @@
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -43,11 +47,27 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
 
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
     private final DiagnosticToProblemListener diagnosticToProblemListener;
+    @Nullable
+    private final StandardJavaFileManagerPool fileManagerPool;
+    @Nullable
+    private final FileHasher fileHasher;
 
+    /**
+     * Creates a compiler that uses a new file manager for every compilation, as used in compiler daemons.
+     */
     @Inject
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, Problems problems) {
+        this(javaHomeBasedJavaCompilerFactory, problems, null, null);
+    }
+
+    /**
+     * Creates a compiler that reuses the file managers of the given pool, which hashes the classpath files with the given file hasher.
+     */
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, Problems problems, @Nullable StandardJavaFileManagerPool fileManagerPool, @Nullable FileHasher fileHasher) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
         this.diagnosticToProblemListener = new DiagnosticToProblemListener(problems);
+        this.fileManagerPool = fileManagerPool;
+        this.fileHasher = fileHasher;
     }
 
     @Override
@@ -68,7 +88,10 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
         Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, charset);
+        StandardJavaFileManagerPool.Lease fileManagerLease = fileManagerPool != null && fileHasher != null
+            ? fileManagerPool.acquire(compiler, charset, options, classpathFilesOf(spec), fileHasher)
+            : StandardJavaFileManagerPool.notReused(compiler, charset);
+        StandardJavaFileManager standardFileManager = fileManagerLease.getFileManager();
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
         boolean hasEmptySourcepaths = JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options);
         JavaFileManager fileManager = GradleStandardJavaFileManager.wrap(standardFileManager, DefaultClassPath.of(spec.getAnnotationProcessorPath()), hasEmptySourcepaths);
@@ -84,10 +107,17 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         }
         Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
         task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
+        task = new ResourceCleaningCompilationTask(task, fileManagerLease);
         return task;
     }
 
+    private static List<File> classpathFilesOf(JavaCompileSpec spec) {
+        List<File> files = new ArrayList<>(spec.getCompileClasspath());
+        files.addAll(spec.getModulePath());
+        files.addAll(spec.getAnnotationProcessorPath());
+        return files;
+    }
+
     private static boolean emptySourcepathIn(List<String> options) {
         Iterator<String> optionsIter = options.iterator();
         while (optionsIter.hasNext()) {
@@ -26,7 +26,7 @@
 import java.util.Locale;
 
 /**
- * Cleans up resources (e.g. file handles) after compilation has finished.
+ * Cleans up resources (e.g. file handles) after compilation has finished, or hands the file manager back to be reused.
  */
 class ResourceCleaningCompilationTask implements JavaCompiler.CompilationTask {
     private final JavaCompiler.CompilationTask delegate;
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.JavaVersion;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.os.OperatingSystem;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the standard file managers of finished compilations, so that a later compilation with the same compiler and options
+ * against unchanged classpath files can reuse them, as suggested by {@link JavaCompiler}. A reused file manager
+ * has already opened and indexed the jars of the classpath, which javac would otherwise do again for every compilation.
+ *
+ * <p>A file manager is only reused when the compiler, the compiler options and the content hash of every file on the classpath,
+ * module path and processor path are the same. The hashes come from the file hasher of the build, which already hashed these
+ * files to fingerprint the inputs of the compile task. Idle file managers which are out of date are closed as soon as a
+ * compilation with the same compiler and options asks for a file manager, and at most {@link #MAX_IDLE_FILE_MANAGERS} idle
+ * file managers are kept, so that the open jars don't grow without bound. All idle file managers are closed when the pool is stopped.</p>
+ *
+ * <p>Reuse is disabled before Java 9, where javac keeps its jar indexes in a shared cache that Gradle needs to clear,
+ * and on Windows, where open jars can't be deleted or replaced.</p>
+ */
+public class StandardJavaFileManagerPool implements Stoppable {
+    static final int MAX_IDLE_FILE_MANAGERS = 4;
+
+    private final boolean enabled;
+    private final int maxIdleFileManagers;
+    // Most recently released first, guarded by this
+    private final Deque<IdleFileManager> idleFileManagers = new ArrayDeque<>();
+    // Guarded by this
+    private boolean stopped;
+
+    public StandardJavaFileManagerPool() {
+        this(JavaVersion.current().isJava9Compatible() && !OperatingSystem.current().isWindows(), MAX_IDLE_FILE_MANAGERS);
+    }
+
+    StandardJavaFileManagerPool(boolean enabled, int maxIdleFileManagers) {
+        this.enabled = enabled;
+        this.maxIdleFileManagers = maxIdleFileManagers;
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given options and classpath files, which must be closed once the compilation is done.
+     */
+    Lease acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Iterable<File> classpathFiles, FileHasher fileHasher) {
+        if (!enabled) {
+            return notReused(compiler, charset);
+        }
+        Key key = new Key(compiler, charset, options, classpathFiles, fileHasher);
+        List<StandardJavaFileManager> outOfDate = new ArrayList<>();
+        StandardJavaFileManager reused = null;
+        synchronized (this) {
+            Iterator<IdleFileManager> iterator = idleFileManagers.iterator();
+            while (iterator.hasNext()) {
+                IdleFileManager idle = iterator.next();
+                if (reused == null && idle.key.equals(key)) {
+                    iterator.remove();
+                    reused = idle.fileManager;
+                } else if (idle.key.hasSameCompilerAndOptions(key)) {
+                    iterator.remove();
+                    outOfDate.add(idle.fileManager);
+                }
+            }
+        }
+        CompositeStoppable.stoppable(outOfDate).stop();
+        if (reused == null) {
+            reused = compiler.getStandardFileManager(null, null, charset);
+        }
+        return new Lease(this, key, fileHasher, reused);
+    }
+
+    /**
+     * Returns a new file manager which is closed once the compilation is done, for compilers that have no pool.
+     */
+    static Lease notReused(JavaCompiler compiler, @Nullable Charset charset) {
+        return new Lease(null, null, null, compiler.getStandardFileManager(null, null, charset));
+    }
+
+    private void release(Key key, FileHasher fileHasher, StandardJavaFileManager fileManager) {
+        if (!key.equals(key.recreate(fileHasher))) {
+            // The classpath changed during the compilation, so the file manager may have seen an inconsistent state
+            CompositeStoppable.stoppable(fileManager).stop();
+            return;
+        }
+        try {
+            fileManager.flush();
+        } catch (IOException e) {
+            CompositeStoppable.stoppable(fileManager).stop();
+            return;
+        }
+        StandardJavaFileManager evicted = null;
+        synchronized (this) {
+            if (stopped) {
+                evicted = fileManager;
+            } else {
+                idleFileManagers.addFirst(new IdleFileManager(key, fileManager));
+                if (idleFileManagers.size() > maxIdleFileManagers) {
+                    evicted = idleFileManagers.removeLast().fileManager;
+                }
+            }
+        }
+        if (evicted != null) {
+            CompositeStoppable.stoppable(evicted).stop();
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<StandardJavaFileManager> idle = new ArrayList<>();
+        synchronized (this) {
+            stopped = true;
+            for (IdleFileManager idleFileManager : idleFileManagers) {
+                idle.add(idleFileManager.fileManager);
+            }
+            idleFileManagers.clear();
+        }
+        CompositeStoppable.stoppable(idle).stop();
+    }
+
+    static class Lease implements Closeable {
+        private final StandardJavaFileManagerPool pool;
+        private final Key key;
+        private final FileHasher fileHasher;
+        private final StandardJavaFileManager fileManager;
+
+        private Lease(@Nullable StandardJavaFileManagerPool pool, @Nullable Key key, @Nullable FileHasher fileHasher, StandardJavaFileManager fileManager) {
+            this.pool = pool;
+            this.key = key;
+            this.fileHasher = fileHasher;
+            this.fileManager = fileManager;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        /**
+         * Returns the file manager to the pool, or closes it if it can't be reused.
+         */
+        @Override
+        public void close() {
+            if (pool == null) {
+                CompositeStoppable.stoppable(fileManager).stop();
+            } else {
+                pool.release(key, fileHasher, fileManager);
+            }
+        }
+    }
+
+    private static class IdleFileManager {
+        private final Key key;
+        private final StandardJavaFileManager fileManager;
+
+        private IdleFileManager(Key key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+    }
+
+    private static class Key {
+        // In-process compilers are all the javac of the current JVM, so the compiler type identifies the implementation of the file manager
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final List<String> options;
+        private final List<File> classpathFiles;
+        private final HashCode classpathHash;
+
+        private Key(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Iterable<File> classpathFiles, FileHasher fileHasher) {
+            this(compiler.getClass(), charset, ImmutableList.copyOf(options), ImmutableList.copyOf(classpathFiles), fileHasher);
+        }
+
+        private Key(Class<?> compilerType, @Nullable Charset charset, List<String> options, List<File> classpathFiles, FileHasher fileHasher) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.options = options;
+            this.classpathFiles = classpathFiles;
+            this.classpathHash = hashClasspath(classpathFiles, fileHasher);
+        }
+
+        private static HashCode hashClasspath(List<File> classpathFiles, FileHasher fileHasher) {
+            Hasher hasher = Hashing.newHasher();
+            for (File file : classpathFiles) {
+                hasher.putString(file.getAbsolutePath());
+                if (file.isFile()) {
+                    hasher.putHash(fileHasher.hash(file));
+                } else {
+                    // Directories are listed again by every compilation, so only their existence matters
+                    hasher.putBoolean(file.isDirectory());
+                }
+            }
+            return hasher.hash();
+        }
+
+        Key recreate(FileHasher fileHasher) {
+            return new Key(compilerType, charset, options, classpathFiles, fileHasher);
+        }
+
+        boolean hasSameCompilerAndOptions(Key other) {
+            return compilerType == other.compilerType && Objects.equals(charset, other.charset) && options.equals(other.options);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hasSameCompilerAndOptions(key) && classpathHash.equals(key.classpathHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(compilerType, charset, options, classpathHash);
+        }
+    }
+}
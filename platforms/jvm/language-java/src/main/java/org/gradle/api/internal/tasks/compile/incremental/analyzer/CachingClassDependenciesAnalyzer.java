@@ -20,8 +20,12 @@
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 import org.gradle.cache.Cache;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 
 public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
+    private static final HashCode ABI_ANALYSIS = Hashing.signature("abi-class-analysis");
+
     private final ClassDependenciesAnalyzer analyzer;
     private final Cache<HashCode, ClassAnalysis> cache;
 
@@ -34,4 +38,17 @@ public CachingClassDependenciesAnalyzer(ClassDependenciesAnalyzer analyzer, Cach
     public ClassAnalysis getClassAnalysis(final HashCode classFileHash, final FileTreeElement classFile) {
         return cache.get(classFileHash, () -> analyzer.getClassAnalysis(classFileHash, classFile));
     }
+
+    @Override
+    public ClassAnalysis getAbiClassAnalysis(final HashCode classFileHash, final FileTreeElement classFile) {
+        // The same class file can be analyzed fully as part of an output folder, so the ABI analysis needs its own key
+        return cache.get(abiAnalysisKey(classFileHash), () -> analyzer.getAbiClassAnalysis(classFileHash, classFile));
+    }
+
+    private static HashCode abiAnalysisKey(HashCode classFileHash) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(ABI_ANALYSIS);
+        hasher.putHash(classFileHash);
+        return hasher.hash();
+    }
 }
@@ -22,4 +22,10 @@
 
 public interface ClassDependenciesAnalyzer {
     ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile);
+
+    /**
+     * Analyzes only what other classes can see of the given class, without any private class dependencies.
+     * This is all that is needed for classes on the classpath, and is cheaper since method bodies don't need to be read.
+     */
+    ClassAnalysis getAbiClassAnalysis(HashCode classFileHash, FileTreeElement classFile);
 }
@@ -41,6 +41,12 @@ public ClassAnalysis getClassAnalysis(InputStream input) throws IOException {
         return ClassDependenciesVisitor.analyze(className, reader, interner);
     }
 
+    public ClassAnalysis getAbiClassAnalysis(InputStream input) throws IOException {
+        ClassReader reader = new ClassReader(ByteStreams.toByteArray(input));
+        String className = reader.getClassName().replace("/", ".");
+        return ClassDependenciesVisitor.analyzeAbi(className, reader, interner);
+    }
+
     @Override
     public ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile) {
         try (InputStream input = classFile.open()) {
@@ -49,4 +55,13 @@ public ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement cl
             throw new RuntimeException("Problems loading class analysis for " + classFile.toString());
         }
     }
+
+    @Override
+    public ClassAnalysis getAbiClassAnalysis(HashCode classFileHash, FileTreeElement classFile) {
+        try (InputStream input = classFile.open()) {
+            return getAbiClassAnalysis(input);
+        } catch (IOException e) {
+            throw new RuntimeException("Problems loading class analysis for " + classFile.toString());
+        }
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.asm;
 
+import com.google.common.collect.ImmutableSet;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import org.objectweb.asm.signature.SignatureReader;
@@ -50,7 +51,7 @@ public class ClassDependenciesVisitor extends ClassVisitor {
     private String moduleName;
     private final RetentionPolicyVisitor retentionPolicyVisitor;
 
-    private ClassDependenciesVisitor(Predicate<String> typeFilter, ClassReader reader, StringInterner interner) {
+    private ClassDependenciesVisitor(Predicate<String> typeFilter, StringInterner interner) {
         super(API);
         this.constants = new IntOpenHashSet(2);
         this.privateTypes = new HashSet<>();
@@ -58,11 +59,11 @@ private ClassDependenciesVisitor(Predicate<String> typeFilter, ClassReader reade
         this.retentionPolicyVisitor = new RetentionPolicyVisitor();
         this.typeFilter = typeFilter;
         this.interner = interner;
-        collectRemainingClassDependencies(reader);
     }
 
     public static ClassAnalysis analyze(String className, ClassReader reader, StringInterner interner) {
-        ClassDependenciesVisitor visitor = new ClassDependenciesVisitor(new ClassRelevancyFilter(className), reader, interner);
+        ClassDependenciesVisitor visitor = new ClassDependenciesVisitor(new ClassRelevancyFilter(className), interner);
+        visitor.collectRemainingClassDependencies(reader);
         reader.accept(visitor, ClassReader.SKIP_FRAMES);
 
         // Remove the "API accessible" types from the "privately used types"
@@ -71,6 +72,18 @@ public static ClassAnalysis analyze(String className, ClassReader reader, String
         return new ClassAnalysis(interner.intern(name), visitor.getPrivateClassDependencies(), visitor.getAccessibleClassDependencies(), visitor.getDependencyToAllReason(), visitor.getConstants());
     }
 
+    /**
+     * Like {@link #analyze(String, ClassReader, StringInterner)}, but leaves out the private class dependencies.
+     * Those are only found in method bodies, debug information and the constant pool, so none of them need to be read.
+     */
+    public static ClassAnalysis analyzeAbi(String className, ClassReader reader, StringInterner interner) {
+        ClassDependenciesVisitor visitor = new ClassDependenciesVisitor(new ClassRelevancyFilter(className), interner);
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        String name = visitor.moduleName != null ? visitor.moduleName : className;
+        return new ClassAnalysis(interner.intern(name), ImmutableSet.of(), visitor.getAccessibleClassDependencies(), visitor.getDependencyToAllReason(), visitor.getConstants());
+    }
+
     @Override
     public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
         isAnnotationType = isAnnotationType(interfaces);
@@ -15,7 +15,6 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
-import com.google.common.collect.ImmutableSet;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.file.FileOperations;
@@ -27,27 +26,47 @@
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class DefaultClassSetAnalyzer implements ClassSetAnalyzer {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultClassSetAnalyzer.class);
+    /**
+     * The number of class files of a directory analyzed by one build operation. Directories with more
+     * class files than that, like the output folder of a large module, are analyzed in parallel.
+     */
+    static final int CLASSES_PER_OPERATION = 500;
 
     private final FileHasher fileHasher;
     private final StreamHasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
     private final FileOperations fileOperations;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final int classesPerOperation;
 
-    public DefaultClassSetAnalyzer(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations) {
+    public DefaultClassSetAnalyzer(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, BuildOperationExecutor buildOperationExecutor) {
+        this(fileHasher, streamHasher, analyzer, fileOperations, buildOperationExecutor, CLASSES_PER_OPERATION);
+    }
+
+    DefaultClassSetAnalyzer(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, BuildOperationExecutor buildOperationExecutor, int classesPerOperation) {
         this.fileHasher = fileHasher;
         this.hasher = streamHasher;
         this.analyzer = analyzer;
         this.fileOperations = fileOperations;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.classesPerOperation = classesPerOperation;
     }
 
     public ClassSetAnalysisData analyzeClasspathEntry(File classpathEntry) {
@@ -78,61 +97,139 @@ private void visit(File classpathEntry, ClassDependentsAccumulator accumulator,
             fileOperations.zipTreeNoLocking(classpathEntry).visit(new JarEntryVisitor(accumulator, abiOnly));
         }
         if (classpathEntry.isDirectory()) {
-            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, abiOnly));
+            visitDirectory(classpathEntry, accumulator, abiOnly);
         }
     }
 
-    private abstract class EntryVisitor implements FileVisitor {
-        private final ClassDependentsAccumulator accumulator;
-        private final boolean abiOnly;
+    /**
+     * Unlike jar entries, the class files of a directory can still be read once the visit is over,
+     * so they are collected first and then analyzed in parallel.
+     */
+    private void visitDirectory(File directory, ClassDependentsAccumulator accumulator, boolean abiOnly) {
+        final List<FileVisitDetails> classFiles = new ArrayList<>();
+        fileOperations.fileTree(directory).visit(new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+            }
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, boolean abiOnly) {
-            this.accumulator = accumulator;
-            this.abiOnly = abiOnly;
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                if (fileDetails.getName().endsWith(".class")) {
+                    classFiles.add(fileDetails);
+                }
+            }
+        });
+
+        AnalyzedClass[] analyzedClasses = new AnalyzedClass[classFiles.size()];
+        if (classFiles.size() <= classesPerOperation) {
+            analyzeDirectoryClasses(classFiles, 0, classFiles.size(), abiOnly, analyzedClasses);
+        } else {
+            buildOperationExecutor.runAll(queue -> {
+                for (int start = 0; start < classFiles.size(); start += classesPerOperation) {
+                    queue.add(new AnalyzeDirectoryClasses(directory, classFiles, start, Math.min(start + classesPerOperation, classFiles.size()), abiOnly, analyzedClasses));
+                }
+            });
         }
+        // Add the results in the order of the visit, so that the analysis does not depend on scheduling
+        for (AnalyzedClass analyzedClass : analyzedClasses) {
+            analyzedClass.addTo(accumulator);
+        }
+    }
 
-        @Override
-        public void visitDir(FileVisitDetails dirDetails) {
+    private void analyzeDirectoryClasses(List<FileVisitDetails> classFiles, int start, int end, boolean abiOnly, AnalyzedClass[] analyzedClasses) {
+        for (int i = start; i < end; i++) {
+            FileVisitDetails fileDetails = classFiles.get(i);
+            HashCode classFileHash = fileHasher.hash(fileDetails.getFile(), fileDetails.getSize(), fileDetails.getLastModified());
+            analyzedClasses[i] = analyzeClass(fileDetails, classFileHash, abiOnly);
         }
+    }
 
-        @Override
-        public void visitFile(FileVisitDetails fileDetails) {
-            if (!fileDetails.getName().endsWith(".class")) {
-                return;
-            }
+    private AnalyzedClass analyzeClass(FileVisitDetails fileDetails, HashCode classFileHash, boolean abiOnly) {
+        try {
+            ClassAnalysis analysis = abiOnly ? analyzer.getAbiClassAnalysis(classFileHash, fileDetails) : analyzer.getClassAnalysis(classFileHash, fileDetails);
+            return new AnalyzedClass(fileDetails.getName(), analysis, classFileHash, null);
+        } catch (Exception e) {
+            return new AnalyzedClass(fileDetails.getName(), null, classFileHash, e);
+        }
+    }
 
-            HashCode classFileHash = getHashCode(fileDetails);
+    private static class AnalyzedClass {
+        private final String fileName;
+        private final ClassAnalysis analysis;
+        private final HashCode classFileHash;
+        private final Exception failure;
+
+        AnalyzedClass(String fileName, @Nullable ClassAnalysis analysis, HashCode classFileHash, @Nullable Exception failure) {
+            this.fileName = fileName;
+            this.analysis = analysis;
+            this.classFileHash = classFileHash;
+            this.failure = failure;
+        }
 
-            try {
-                ClassAnalysis analysis = maybeStripToAbi(analyzer.getClassAnalysis(classFileHash, fileDetails));
+        void addTo(ClassDependentsAccumulator accumulator) {
+            if (failure == null) {
                 accumulator.addClass(analysis, classFileHash);
-            } catch (Exception e) {
-                accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
+            } else {
+                accumulator.fullRebuildNeeded(fileName + " could not be analyzed for incremental compilation. See the debug log for more details");
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Could not analyze " + fileDetails.getName() + " for incremental compilation", e);
+                    LOGGER.debug("Could not analyze " + fileName + " for incremental compilation", failure);
                 }
             }
         }
+    }
 
-        private ClassAnalysis maybeStripToAbi(ClassAnalysis analysis) {
-            if (abiOnly) {
-                return new ClassAnalysis(analysis.getClassName(), ImmutableSet.of(), analysis.getAccessibleClassDependencies(), analysis.getDependencyToAllReason(), analysis.getConstants());
-            } else {
-                return analysis;
-            }
+    private class AnalyzeDirectoryClasses implements RunnableBuildOperation {
+        private final File directory;
+        private final List<FileVisitDetails> classFiles;
+        private final int start;
+        private final int end;
+        private final boolean abiOnly;
+        private final AnalyzedClass[] analyzedClasses;
+
+        AnalyzeDirectoryClasses(File directory, List<FileVisitDetails> classFiles, int start, int end, boolean abiOnly, AnalyzedClass[] analyzedClasses) {
+            this.directory = directory;
+            this.classFiles = classFiles;
+            this.start = start;
+            this.end = end;
+            this.abiOnly = abiOnly;
+            this.analyzedClasses = analyzedClasses;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            analyzeDirectoryClasses(classFiles, start, end, abiOnly, analyzedClasses);
         }
 
-        protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Analyze classes " + start + " to " + end + " of " + directory + " for incremental compilation");
+        }
     }
 
-    private class JarEntryVisitor extends EntryVisitor {
+    private class JarEntryVisitor implements FileVisitor {
+        private final ClassDependentsAccumulator accumulator;
+        private final boolean abiOnly;
 
         public JarEntryVisitor(ClassDependentsAccumulator accumulator, boolean abiOnly) {
-            super(accumulator, abiOnly);
+            this.accumulator = accumulator;
+            this.abiOnly = abiOnly;
+        }
+
+        @Override
+        public void visitDir(FileVisitDetails dirDetails) {
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
+        public void visitFile(FileVisitDetails fileDetails) {
+            if (!fileDetails.getName().endsWith(".class")) {
+                return;
+            }
+
+            HashCode classFileHash = getHashCode(fileDetails);
+            analyzeClass(fileDetails, classFileHash, abiOnly).addTo(accumulator);
+        }
+
+        private HashCode getHashCode(FileVisitDetails fileDetails) {
             InputStream inputStream = fileDetails.open();
             try {
                 return hasher.hash(inputStream);
@@ -141,17 +238,4 @@ protected HashCode getHashCode(FileVisitDetails fileDetails) {
             }
         }
     }
-
-    private class DirectoryEntryVisitor extends EntryVisitor {
-
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, boolean abiOnly) {
-            super(accumulator, abiOnly);
-        }
-
-        @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            return fileHasher.hash(fileDetails.getFile(), fileDetails.getSize(), fileDetails.getLastModified());
-        }
-    }
-
 }
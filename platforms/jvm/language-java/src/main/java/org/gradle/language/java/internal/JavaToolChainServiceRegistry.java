@@ -18,8 +18,10 @@
 
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.tasks.compile.DefaultJavaCompilerFactory;
+import org.gradle.api.internal.tasks.compile.StandardJavaFileManagerPool;
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector;
 import org.gradle.api.problems.Problems;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
 import org.gradle.jvm.toolchain.internal.JavaCompilerFactory;
@@ -30,11 +32,23 @@
 import org.gradle.workers.internal.WorkerDaemonFactory;
 
 public class JavaToolChainServiceRegistry extends AbstractPluginServiceRegistry {
+    @Override
+    public void registerGradleUserHomeServices(ServiceRegistration registration) {
+        registration.addProvider(new GradleUserHomeScopeCompileServices());
+    }
+
     @Override
     public void registerProjectServices(ServiceRegistration registration) {
         registration.addProvider(new ProjectScopeCompileServices());
     }
 
+    private static class GradleUserHomeScopeCompileServices {
+        // Kept across the builds of a daemon, and stopped together with the other services of the Gradle user home
+        StandardJavaFileManagerPool createStandardJavaFileManagerPool() {
+            return new StandardJavaFileManagerPool();
+        }
+    }
+
     private static class ProjectScopeCompileServices {
         JavaCompilerFactory createJavaCompilerFactory(
             WorkerDaemonFactory workerDaemonFactory,
@@ -44,7 +58,9 @@ JavaCompilerFactory createJavaCompilerFactory(
             AnnotationProcessorDetector processorDetector,
             ClassPathRegistry classPathRegistry,
             ActionExecutionSpecFactory actionExecutionSpecFactory,
-            Problems problems
+            Problems problems,
+            StandardJavaFileManagerPool fileManagerPool,
+            FileHasher fileHasher
         ) {
             return new DefaultJavaCompilerFactory(
                 workerDirectoryProvider,
@@ -54,7 +70,9 @@ JavaCompilerFactory createJavaCompilerFactory(
                 processorDetector,
                 classPathRegistry,
                 actionExecutionSpecFactory,
-                problems
+                problems,
+                fileManagerPool,
+                fileHasher
             );
         }
 
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile
 import org.gradle.api.internal.ClassPathRegistry
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector
 import org.gradle.api.problems.Problems
+import org.gradle.internal.hash.FileHasher
 import org.gradle.process.internal.ExecHandleFactory
 import org.gradle.process.internal.JavaForkOptionsFactory
 import org.gradle.workers.internal.ActionExecutionSpecFactory
@@ -35,7 +36,9 @@ class DefaultJavaCompilerFactoryTest extends Specification {
         Stub(AnnotationProcessorDetector),
         Stub(ClassPathRegistry),
         Stub(ActionExecutionSpecFactory),
-        Stub(Problems)
+        Stub(Problems),
+        new StandardJavaFileManagerPool(),
+        Stub(FileHasher)
     )
 
     def "creates in-process compiler when JavaCompileSpec is provided"() {
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.StandardCharsets
+
+class StandardJavaFileManagerPoolTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider(getClass())
+
+    def compiler = Mock(JavaCompiler)
+    def fileHasher = TestFiles.fileHasher()
+    def pool = new StandardJavaFileManagerPool(true, 2)
+    def jar = temp.file("lib.jar") << "content"
+    def classes = temp.createDir("classes")
+
+    def "reuses the file manager of a compilation with the same options and classpath"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def lease = pool.acquire(compiler, null, ["-g"], [jar, classes], fileHasher)
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        lease.fileManager == fileManager
+
+        when:
+        lease.close()
+
+        then:
+        1 * fileManager.flush()
+        0 * fileManager.close()
+
+        when:
+        def reused = pool.acquire(compiler, null, ["-g"], [jar, classes], fileHasher)
+
+        then:
+        0 * compiler._
+        reused.fileManager == fileManager
+    }
+
+    def "does not reuse a file manager for different options"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, _) >>> [fileManager, otherFileManager]
+
+        when:
+        pool.acquire(compiler, null, ["-g"], [jar], fileHasher).close()
+
+        then:
+        pool.acquire(compiler, null, ["-g:none"], [jar], fileHasher).fileManager == otherFileManager
+        pool.acquire(compiler, StandardCharsets.UTF_8, ["-g"], [jar], fileHasher).fileManager != fileManager
+        0 * fileManager.close()
+    }
+
+    def "closes the idle file manager once a classpath jar changed"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager, otherFileManager]
+        pool.acquire(compiler, null, ["-g"], [jar], fileHasher).close()
+
+        when:
+        jar << "more content"
+        def lease = pool.acquire(compiler, null, ["-g"], [jar], fileHasher)
+
+        then:
+        1 * fileManager.close()
+        lease.fileManager == otherFileManager
+    }
+
+    def "closes the idle file manager once the content of a classpath jar changed, although its length and last modified time did not"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager, otherFileManager]
+        pool.acquire(compiler, null, ["-g"], [jar], fileHasher).close()
+        def lastModified = jar.lastModified()
+
+        when:
+        jar.text = "CONTENT"
+        jar.setLastModified(lastModified)
+        def lease = pool.acquire(compiler, null, ["-g"], [jar], fileHasher)
+
+        then:
+        1 * fileManager.close()
+        lease.fileManager == otherFileManager
+    }
+
+    def "does not reuse a file manager of a different compiler"() {
+        def otherCompiler = Mock(OtherJavaCompiler)
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        otherCompiler.getStandardFileManager(null, null, null) >> otherFileManager
+        pool.acquire(compiler, null, ["-g"], [jar], fileHasher).close()
+
+        when:
+        def lease = pool.acquire(otherCompiler, null, ["-g"], [jar], fileHasher)
+
+        then:
+        lease.fileManager == otherFileManager
+        0 * fileManager.close()
+    }
+
+    def "closes the file manager instead of keeping it when a classpath jar changed during the compilation"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        def lease = pool.acquire(compiler, null, ["-g"], [jar], fileHasher)
+
+        when:
+        jar << "more content"
+        lease.close()
+
+        then:
+        1 * fileManager.close()
+    }
+
+    def "closes the least recently used file manager when too many are idle"() {
+        def fileManagers = (1..3).collect { Mock(StandardJavaFileManager) }
+        compiler.getStandardFileManager(null, null, null) >>> fileManagers
+        def leases = (1..3).collect { pool.acquire(compiler, null, ["-Xlint:$it"], [jar], fileHasher) }
+
+        when:
+        leases.each { it.close() }
+
+        then:
+        1 * fileManagers[0].close()
+        0 * fileManagers[1].close()
+        0 * fileManagers[2].close()
+    }
+
+    def "closes the idle file managers when stopped"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager, otherFileManager]
+        pool.acquire(compiler, null, ["-g"], [jar], fileHasher).close()
+        def lease = pool.acquire(compiler, null, ["-g:none"], [jar], fileHasher)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * fileManager.close()
+        0 * otherFileManager.close()
+
+        when:
+        lease.close()
+
+        then:
+        1 * otherFileManager.close()
+    }
+
+    def "closes file managers that are not reused"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        StandardJavaFileManagerPool.notReused(compiler, null).close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+        0 * fileManager.flush()
+    }
+
+    def "closes file managers when reuse is disabled"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        def disabledPool = new StandardJavaFileManagerPool(false, 2)
+
+        when:
+        disabledPool.acquire(compiler, null, ["-g"], [jar], fileHasher).close()
+
+        then:
+        1 * fileManager.close()
+        0 * fileManager.flush()
+    }
+
+    interface OtherJavaCompiler extends JavaCompiler {
+    }
+}
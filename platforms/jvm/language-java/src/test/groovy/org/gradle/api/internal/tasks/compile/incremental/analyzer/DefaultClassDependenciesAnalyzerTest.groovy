@@ -136,6 +136,22 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(SomeSourceAnnotation).dependencyToAllReason
     }
 
+    def "abi analysis of #type.simpleName has the accessible dependencies, constants and dependency to all reason of the full analysis"() {
+        when:
+        def full = analyze(type)
+        def abi = analyzer.getAbiClassAnalysis(classStream(type))
+
+        then:
+        abi.className == full.className
+        abi.privateClassDependencies.isEmpty()
+        abi.accessibleClassDependencies == full.accessibleClassDependencies
+        abi.constants == full.constants
+        abi.dependencyToAllReason == full.dependencyToAllReason
+
+        where:
+        type << [SomeClass, SomeOtherClass, HasNonPrivateConstants, HasPrivateConstants, UsesRuntimeAnnotation, SomeSourceAnnotation, DefaultClassDependenciesAnalyzerTest]
+    }
+
     InputStream classStream(Class aClass) {
         aClass.classLoader.getResourceAsStream(aClass.getName().replace(".", "/") + ".class")
     }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.classpath
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.test.AccessedFromPackagePrivateField
+import org.gradle.api.internal.tasks.compile.incremental.test.HasInnerClass
+import org.gradle.api.internal.tasks.compile.incremental.test.HasNonPrivateConstants
+import org.gradle.api.internal.tasks.compile.incremental.test.HasPrivateConstants
+import org.gradle.api.internal.tasks.compile.incremental.test.HasPublicConstants
+import org.gradle.api.internal.tasks.compile.incremental.test.SomeClass
+import org.gradle.api.internal.tasks.compile.incremental.test.SomeOtherClass
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DefaultClassSetAnalyzerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider(getClass())
+
+    def classes = temp.createDir("classes")
+
+    def setup() {
+        [SomeClass, SomeOtherClass, HasInnerClass, HasInnerClass.InnerThing, HasPublicConstants, HasPrivateConstants, HasNonPrivateConstants, AccessedFromPackagePrivateField].each {
+            copyClassFile(it)
+        }
+    }
+
+    def "analyzing a directory in chunks gives the same result as analyzing it at once"() {
+        def unchunked = analyzer(DefaultClassSetAnalyzer.CLASSES_PER_OPERATION)
+        def chunked = analyzer(3)
+
+        expect:
+        assertSameAnalysis(chunked.analyzeOutputFolder(classes), unchunked.analyzeOutputFolder(classes))
+        assertSameAnalysis(chunked.analyzeClasspathEntry(classes), unchunked.analyzeClasspathEntry(classes))
+    }
+
+    def "a class that cannot be analyzed triggers a full rebuild when analyzing #description"() {
+        classes.file("org/gradle/Broken.class") << "not a class file"
+
+        when:
+        def analysis = analyzer(classesPerOperation).analyzeOutputFolder(classes)
+
+        then:
+        analysis.fullRebuildCause == "Broken.class could not be analyzed for incremental compilation. See the debug log for more details"
+
+        where:
+        description | classesPerOperation
+        "at once"   | DefaultClassSetAnalyzer.CLASSES_PER_OPERATION
+        "in chunks" | 2
+    }
+
+    private DefaultClassSetAnalyzer analyzer(int classesPerOperation) {
+        new DefaultClassSetAnalyzer(
+            TestFiles.fileHasher(),
+            TestFiles.streamHasher(),
+            new DefaultClassDependenciesAnalyzer(new StringInterner()),
+            TestFiles.fileOperations(temp.testDirectory),
+            new TestBuildOperationExecutor(),
+            classesPerOperation
+        )
+    }
+
+    private void copyClassFile(Class<?> type) {
+        String path = type.name.replace(".", "/") + ".class"
+        TestFile classFile = classes.file(path)
+        classFile.parentFile.mkdirs()
+        classFile.bytes = type.classLoader.getResourceAsStream(path).bytes
+    }
+
+    private static void assertSameAnalysis(ClassSetAnalysisData actual, ClassSetAnalysisData expected) {
+        assert actual.classHashes == expected.classHashes
+        assert actual.classesToConstants == expected.classesToConstants
+        assert actual.fullRebuildCause == expected.fullRebuildCause
+        assert actual.dependents.keySet() == expected.dependents.keySet()
+        expected.dependents.each { className, dependents ->
+            assert actual.dependents[className].accessibleDependentClasses == dependents.accessibleDependentClasses
+            assert actual.dependents[className].privateDependentClasses == dependents.privateDependentClasses
+            assert actual.dependents[className].dependencyToAll == dependents.dependencyToAll
+        }
+    }
+}
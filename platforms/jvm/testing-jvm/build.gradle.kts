@@ -13,6 +13,7 @@ dependency for any projects working directly with Test tasks.
 dependencies {
     implementation(project(":functional"))
     implementation(project(":base-services"))
+    implementation(project(":build-option"))
     implementation(project(":messaging"))
     implementation(project(":logging"))
     implementation(project(":file-temp"))
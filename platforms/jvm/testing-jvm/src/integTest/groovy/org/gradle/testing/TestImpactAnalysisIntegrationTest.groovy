@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.testing
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.DefaultTestExecutionResult
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.IntegTestPreconditions
+
+import static org.hamcrest.CoreMatchers.containsString
+import static org.hamcrest.CoreMatchers.not
+
+@Requires(IntegTestPreconditions.NotEmbeddedExecutor)
+class TestImpactAnalysisIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        buildFile << """
+            apply plugin: "java"
+
+            ${mavenCentralRepository()}
+
+            dependencies {
+                testImplementation "$testJunitCoordinates"
+            }
+
+            // A test class depends on all classes loaded earlier in its test worker, so each test class gets its own
+            test.forkEvery = 1
+        """
+        (1..5).each {
+            file("src/main/java/Class${it}.java") << "public class Class${it} { public int value() { return ${it}; } }"
+        }
+        file("src/test/java/Class1Test.java") << testClass("Class1Test", "Class1", 1)
+        file("src/test/java/Class2Test.java") << testClass("Class2Test", "Class2", 2)
+    }
+
+    def "only runs the test classes that loaded a changed class when enabled"() {
+        when:
+        withTestImpactAnalysis()
+        run("test")
+
+        then:
+        testsExecuted("Class1Test", "Class2Test")
+
+        when:
+        file("src/main/java/Class1.java").text = "public class Class1 { public int value() { return 1; } public int other() { return 0; } }"
+        withTestImpactAnalysis()
+        run("test")
+
+        then:
+        ran("Class1Test")
+        keptPreviousResults("Class2Test")
+        outputContains("Test impact analysis skipped 1 of 2 test classes of :test, which did not load any of the 1 changed classes. Their previous results are kept.")
+
+        when:
+        file("src/main/java/Class3.java").text = "public class Class3 { public int value() { return 3; } public int other() { return 0; } }"
+        withTestImpactAnalysis()
+        run("test")
+
+        then:
+        outputContains("Test impact analysis skipped 2 of 2 test classes of :test")
+        keptPreviousResults("Class1Test", "Class2Test")
+    }
+
+    def "passes when all the test classes selected with --tests are skipped"() {
+        when:
+        withTestImpactAnalysis()
+        run("test")
+        file("src/main/java/Class1.java").text = "public class Class1 { public int value() { return 1; } public int other() { return 0; } }"
+        withTestImpactAnalysis()
+        run("test", "--tests", "Class2Test")
+
+        then:
+        keptPreviousResults("Class2Test")
+        outputContains("Test impact analysis skipped 1 of 1 test classes of :test")
+    }
+
+    def "runs a test class again after it ran with --tests"() {
+        when:
+        withTestImpactAnalysis()
+        run("test")
+        file("src/main/java/Class2.java").text = "public class Class2 { public int value() { return 2; } public int other() { return 0; } }"
+        withTestImpactAnalysis()
+        run("test", "--tests", "Class*Test")
+        file("src/main/java/Class3.java").text = "public class Class3 { public int value() { return 3; } public int other() { return 0; } }"
+        withTestImpactAnalysis()
+        run("test")
+
+        then:
+        ran("Class2Test")
+        keptPreviousResults("Class1Test")
+    }
+
+    def "runs all test classes when a resource changed"() {
+        file("src/main/resources/data.txt") << "data"
+
+        when:
+        withTestImpactAnalysis()
+        run("test")
+        file("src/main/resources/data.txt") << "changed"
+        withTestImpactAnalysis()
+        run("test")
+
+        then:
+        testsExecuted("Class1Test", "Class2Test")
+        outputDoesNotContain("Test impact analysis skipped")
+    }
+
+    def "runs a failed test class again although it is unaffected"() {
+        file("src/test/java/Class2Test.java").text = testClass("Class2Test", "Class2", 3)
+
+        when:
+        withTestImpactAnalysis()
+        fails("test")
+        file("src/main/java/Class1.java").text = "public class Class1 { public int value() { return 1; } public int other() { return 0; } }"
+        withTestImpactAnalysis()
+        fails("test")
+
+        then:
+        testsExecuted("Class1Test", "Class2Test")
+    }
+
+    def "runs all test classes when not enabled"() {
+        when:
+        run("test")
+        file("src/main/java/Class1.java").text = "public class Class1 { public int value() { return 1; } public int other() { return 0; } }"
+        run("test")
+
+        then:
+        testsExecuted("Class1Test", "Class2Test")
+        outputDoesNotContain("Test impact analysis")
+    }
+
+    private void withTestImpactAnalysis() {
+        executer.withArgument("-Dorg.gradle.internal.test.impact-analysis=true")
+    }
+
+    private void testsExecuted(String... testClasses) {
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted(testClasses)
+    }
+
+    private void ran(String testClass) {
+        new DefaultTestExecutionResult(testDirectory).testClass(testClass).assertTestPassed("test").assertStdout(containsString("running ${testClass}"))
+    }
+
+    private void keptPreviousResults(String... testClasses) {
+        testClasses.each {
+            new DefaultTestExecutionResult(testDirectory).testClass(it).assertTestPassed("test").assertStdout(not(containsString("running")))
+        }
+    }
+
+
+    private static String testClass(String name, String classUnderTest, int expectedValue) {
+        """
+            import org.junit.Test;
+            import static org.junit.Assert.assertEquals;
+
+            public class ${name} {
+                @Test
+                public void test() {
+                    System.out.println("running ${name}");
+                    assertEquals(${expectedValue}, new ${classUnderTest}().value());
+                }
+            }
+        """
+    }
+}
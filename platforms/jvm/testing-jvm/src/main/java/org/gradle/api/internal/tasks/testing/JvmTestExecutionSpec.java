@@ -18,11 +18,15 @@
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAnalysis;
 import org.gradle.internal.scan.UsedByScanPlugin;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.util.Path;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 @UsedByScanPlugin("test-distribution, test-retry")
@@ -39,9 +43,16 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     private final JavaForkOptions javaForkOptions;
     private final int maxParallelForks;
     private final Set<String> previousFailedTestClasses;
+    private final Map<String, Long> previousTestClassDurations;
     private final boolean testIsModule;
+    @Nullable
+    private final TestImpactAnalysis testImpactAnalysis;
 
     public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, Iterable<? extends File>  modulePath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Set<String> previousFailedTestClasses, boolean testIsModule) {
+        this(testFramework, classpath, modulePath, candidateClassFiles, scanForTestClasses, testClassesDirs, path, identityPath, forkEvery, javaForkOptions, maxParallelForks, previousFailedTestClasses, Collections.<String, Long>emptyMap(), testIsModule, null);
+    }
+
+    public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, Iterable<? extends File>  modulePath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Set<String> previousFailedTestClasses, Map<String, Long> previousTestClassDurations, boolean testIsModule, @Nullable TestImpactAnalysis testImpactAnalysis) {
         this.testFramework = testFramework;
         this.classpath = classpath;
         this.modulePath = modulePath;
@@ -54,7 +65,9 @@ public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File
         this.javaForkOptions = javaForkOptions;
         this.maxParallelForks = maxParallelForks;
         this.previousFailedTestClasses = previousFailedTestClasses;
+        this.previousTestClassDurations = previousTestClassDurations;
         this.testIsModule = testIsModule;
+        this.testImpactAnalysis = testImpactAnalysis;
     }
 
     @SuppressWarnings("unused")
@@ -62,7 +75,7 @@ public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File
     public JvmTestExecutionSpec copyWithTestFramework(TestFramework testFramework) {
         return new JvmTestExecutionSpec(testFramework, this.classpath, this.modulePath, this.candidateClassFiles,
             this.scanForTestClasses, this.testClassesDirs, this.path, this.identityPath, this.forkEvery,
-            this.javaForkOptions, this.maxParallelForks, this.previousFailedTestClasses, this.testIsModule
+            this.javaForkOptions, this.maxParallelForks, this.previousFailedTestClasses, this.previousTestClassDurations, this.testIsModule, this.testImpactAnalysis
         );
     }
 
@@ -116,7 +129,22 @@ public Set<String> getPreviousFailedTestClasses() {
         return previousFailedTestClasses;
     }
 
+    /**
+     * The durations in milliseconds of the test classes executed by the previous run, keyed by class name.
+     */
+    public Map<String, Long> getPreviousTestClassDurations() {
+        return previousTestClassDurations;
+    }
+
     public boolean getTestIsModule() {
         return testIsModule;
     }
+
+    /**
+     * The test impact analysis of this run, or {@code null} when it is not enabled.
+     */
+    @Nullable
+    public TestImpactAnalysis getTestImpactAnalysis() {
+        return testImpactAnalysis;
+    }
 }
@@ -130,4 +130,14 @@ default List<TestFrameworkDistributionModule> getWorkerImplementationModulepathM
     @Internal
     boolean getUseDistributionDependencies();
 
+    /**
+     * Whether the test worker runs each test class as soon as it receives it, and reports the start and completion of each test class.
+     * If true, idle test workers are given the next test class as they complete the previous one, rather than all test classes being
+     * assigned to the test workers up front.
+     */
+    @Internal
+    default boolean getRunsTestClassesWhenReceived() {
+        return false;
+    }
+
 }
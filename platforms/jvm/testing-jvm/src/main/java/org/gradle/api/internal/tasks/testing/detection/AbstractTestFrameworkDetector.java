@@ -29,6 +29,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -46,7 +47,7 @@
 
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final Map<String, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
 
     private List<File> testClassesDirectories;
@@ -55,12 +56,13 @@
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new HashMap<String, Boolean>();
     }
 
     protected abstract T createClassVisitor();
 
-    private File getSuperTestClassFile(String superClassName) {
+    @Nullable
+    private TestClass readSuperTestClass(String superClassName) {
         prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
@@ -75,13 +77,14 @@ private File getSuperTestClassFile(String superClassName) {
         }
 
         if (superTestClassFile != null) {
-            return superTestClassFile;
+            return readClassFile(superTestClassFile, Factories.constant(superClassName));
         } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
             // java.lang.Object found, which is not a test class
             return null;
         } else {
             // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+            byte[] superTestClassBytes = classFileExtractionManager.getLibraryClassBytes(superClassName);
+            return superTestClassBytes == null ? null : readClass(superTestClassBytes, superClassName, Factories.constant(superClassName));
         }
     }
 
@@ -117,14 +120,10 @@ public void setTestClasspath(List<File> testClasspath) {
     }
 
     private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
-        final TestClassVisitor classVisitor = createClassVisitor();
-
         InputStream classStream = null;
         try {
             classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(IOUtils.toByteArray(classStream));
-            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-            return TestClass.forParseableFile(classVisitor);
+            return readClass(IOUtils.toByteArray(classStream), testClassFile.getAbsolutePath(), fallbackClassNameProvider);
         } catch (Throwable e) {
             LOGGER.debug("Failed to read class file " + testClassFile.getAbsolutePath() + "; assuming it's a test class and continuing", e);
             return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
@@ -133,14 +132,27 @@ private TestClass readClassFile(File testClassFile, Factory<String> fallbackClas
         }
     }
 
+    private TestClass readClass(byte[] classBytes, String displayName, Factory<String> fallbackClassNameProvider) {
+        final TestClassVisitor classVisitor = createClassVisitor();
+        try {
+            final ClassReader classReader = new ClassReader(classBytes);
+            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+            return TestClass.forParseableFile(classVisitor);
+        } catch (Throwable e) {
+            LOGGER.debug("Failed to read class file " + displayName + "; assuming it's a test class and continuing", e);
+            return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
+        }
+    }
+
     @Override
     public boolean processTestClass(final RelativeFile testClassFile) {
-        return processTestClass(testClassFile.getFile(), false, new Factory<String>() {
+        TestClass testClass = readClassFile(testClassFile.getFile(), new Factory<String>() {
             @Override
             public String create() {
                 return testClassFile.getRelativePath().getPathString().replace(".class", "");
             }
         });
+        return processTestClass(testClass, false);
     }
 
     /**
@@ -148,9 +160,7 @@ public String create() {
      * class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang the class can't be a test class, otherwise the parent class is scanned. <p/> When a
      * parent class is a test class all the extending classes are marked as test classes.
      */
-    private boolean processTestClass(File testClassFile, boolean superClass, Factory<String> fallbackClassNameProvider) {
-        TestClass testClass = readClassFile(testClassFile, fallbackClassNameProvider);
-
+    private boolean processTestClass(TestClass testClass, boolean superClass) {
         boolean isTest = testClass.isTest();
 
         if (!isTest) { // scan parent class
@@ -159,14 +169,7 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
             } else {
-                File superClassFile = getSuperTestClassFile(superClassName);
-
-                if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile, superClassName);
-                } else {
-                    LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
-                        superClassName);
-                }
+                isTest = processSuperClass(superClassName);
             }
         }
 
@@ -177,15 +180,22 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
 
     protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
-    private boolean processSuperClass(File testClassFile, String superClassName) {
+    private boolean processSuperClass(String superClassName) {
         boolean isTest;
 
-        Boolean isSuperTest = superClasses.get(testClassFile);
+        Boolean isSuperTest = superClasses.get(superClassName);
 
         if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true, Factories.constant(superClassName));
+            TestClass superTestClass = readSuperTestClass(superClassName);
+            if (superTestClass != null) {
+                isTest = processTestClass(superTestClass, true);
+            } else {
+                LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
+                    superClassName);
+                isTest = false;
+            }
 
-            superClasses.put(testClassFile, isTest);
+            superClasses.put(superClassName, isTest);
         } else {
             isTest = isSuperTest;
         }
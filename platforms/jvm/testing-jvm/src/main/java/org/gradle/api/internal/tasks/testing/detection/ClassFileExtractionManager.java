@@ -15,35 +15,33 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.lang.text.StrBuilder;
+import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
-import org.gradle.api.internal.file.temp.DefaultTemporaryFileProvider;
-import org.gradle.api.internal.file.temp.TemporaryFileProvider;
-import org.gradle.internal.Factory;
-import org.gradle.util.internal.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages reading class files from library jar files.
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
     private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
-    private final Set<String> unextractableClasses;
-    private final TemporaryFileProvider tempDirProvider;
+    private final Set<String> unreadableClasses;
 
-    public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
-        assert tempDirFactory != null;
-        tempDirProvider = new DefaultTemporaryFileProvider(tempDirFactory);
+    public ClassFileExtractionManager() {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
+        unreadableClasses = new TreeSet<String>();
     }
 
     /**
@@ -66,66 +64,59 @@ public void receivePackage(String packageName) {
     }
 
     /**
-     * Retrieve the file that contains the extracted class file.
+     * Reads the class file of a class from the library jars.
      *
      * <p>
-     * This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * Only the jars which contain the package of the class are looked at, and the class file is read directly
+     * from the jar through its central directory, without extracting it to disk.
      * </p>
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Name of the class to read.
+     * @return The content of the class file, or null when no library jar contains the class.
      */
-    public File getLibraryClassFile(final String className) {
-        if (unextractableClasses.contains(className)) {
+    @Nullable
+    public byte[] getLibraryClassBytes(final String className) {
+        if (unreadableClasses.contains(className)) {
             return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
+        }
+
+        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage(className));
+        if (packageJarFiles != null) {
+            final String classFileName = className + ".class";
+            for (File jarFile : packageJarFiles) {
+                byte[] classBytes = readClassFile(jarFile, classFileName);
+                if (classBytes != null) {
+                    LOGGER.debug("read class {} from {}", className, jarFile.getName());
+                    return classBytes;
                 }
             }
+        } // super class not on the classpath - unable to scan parent class
 
-            return extractedJarClasses.get(className);
-        }
+        unreadableClasses.add(className);
+        return null;
     }
 
-    private boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
-        final String classFileName = new StrBuilder().append(className).append(".class").toString();
-        final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
-
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
-
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
-
+    @Nullable
+    private static byte[] readClassFile(File jarFile, String classFileName) {
+        try {
+            ZipFile zipFile = new ZipFile(jarFile);
+            try {
+                ZipEntry entry = zipFile.getEntry(classFileName);
+                if (entry == null) {
+                    return null;
+                }
+                InputStream classStream = zipFile.getInputStream(entry);
                 try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
-
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
-                    }
-                } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
+                    return IOUtils.toByteArray(classStream);
+                } finally {
+                    classStream.close();
                 }
+            } finally {
+                zipFile.close();
             }
-
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
-
-                extractedJarClasses.put(className, extractedClassFile);
-            }
-        } // super class not on the classpath - unable to scan parent class
-
-        return classFileExtracted;
+        } catch (IOException e) {
+            throw new GradleException("failed to read class file from jar (" + jarFile + ")", e);
+        }
     }
 
     private String classNamePackage(final String className) {
@@ -137,8 +128,4 @@ private String classNamePackage(final String className) {
             return className.substring(0, lastSlashIndex + 1);
         }
     }
-
-    private File tempFile() {
-        return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
-    }
 }
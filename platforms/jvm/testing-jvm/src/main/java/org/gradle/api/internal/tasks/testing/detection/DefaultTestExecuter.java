@@ -26,8 +26,11 @@
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.impact.SkipUnaffectedTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAnalysis;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.PreviousTestClassDurations;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
@@ -43,6 +46,8 @@
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The default test class scanner factory.
@@ -99,10 +104,23 @@ public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        TestImpactAnalysis testImpactAnalysis = testExecutionSpec.getTestImpactAnalysis();
+        Map<String, Long> previousDurations = testExecutionSpec.getPreviousTestClassDurations();
+        if (testImpactAnalysis != null) {
+            // Skipped test classes are never passed on, so they must not hold back the test classes that are expected to take less time
+            previousDurations = new HashMap<String, Long>(previousDurations);
+            previousDurations.keySet().removeAll(testImpactAnalysis.getSkippableTestClasses());
+        }
+        PreviousTestClassDurations previousTestClassDurations = new PreviousTestClassDurations(previousDurations);
+        int maxParallelForks = getMaxParallelForks(testExecutionSpec);
+        boolean pullTestClasses = maxParallelForks > 1 && testFramework.getRunsTestClassesWhenReceived();
+        TestClassProcessor testClassProcessor =
+            new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(), previousTestClassDurations,
+                new MaxNParallelTestClassProcessor(maxParallelForks, reforkingProcessorFactory, actorFactory, previousTestClassDurations, pullTestClasses));
+        if (testImpactAnalysis != null) {
+            testClassProcessor = new SkipUnaffectedTestClassProcessor(testImpactAnalysis, testClassProcessor);
+        }
+        processor = new PatternMatchTestClassProcessor(testFilter, testClassProcessor);
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -117,6 +135,10 @@ public TestClassProcessor create() {
         }
 
         new TestMainAction(detector, processor, testResultProcessor, workerLeaseService, clock, testExecutionSpec.getPath(), "Gradle Test Run " + testExecutionSpec.getIdentityPath()).run();
+
+        if (testImpactAnalysis != null) {
+            testImpactAnalysis.recordRun();
+        }
     }
 
     @Override
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.id.LongIdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes on the test classes that are affected by the changes since the previous run, according to {@link TestImpactAnalysis}.
+ * Once the test classes that ran have completed, the previous results of the skipped test classes are reported again, so that
+ * they are kept in the test reports and in the durations used by the next run.
+ */
+public class SkipUnaffectedTestClassProcessor implements TestClassProcessor {
+    private final TestImpactAnalysis testImpactAnalysis;
+    private final TestClassProcessor delegate;
+    private final IdGenerator<?> idGenerator = new CompositeIdGenerator(SkipUnaffectedTestClassProcessor.class.getSimpleName(), new LongIdGenerator());
+    private final List<TestClassResult> skippedTestClasses = new ArrayList<TestClassResult>();
+    private TestResultProcessor resultProcessor;
+
+    public SkipUnaffectedTestClassProcessor(TestImpactAnalysis testImpactAnalysis, TestClassProcessor delegate) {
+        this.testImpactAnalysis = testImpactAnalysis;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (testImpactAnalysis.shouldRun(testClass.getTestClassName())) {
+            delegate.processTestClass(testClass);
+        } else {
+            skippedTestClasses.add(testImpactAnalysis.getPreviousResult(testClass.getTestClassName()));
+        }
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+        for (TestClassResult previousResult : skippedTestClasses) {
+            reportPreviousResult(previousResult);
+        }
+    }
+
+    private void reportPreviousResult(TestClassResult previousResult) {
+        Object classId = idGenerator.generateId();
+        resultProcessor.started(new DefaultTestClassDescriptor(classId, previousResult.getClassName(), previousResult.getClassDisplayName()), new TestStartEvent(previousResult.getStartTime()));
+        for (TestMethodResult methodResult : previousResult.getResults()) {
+            Object methodId = idGenerator.generateId();
+            DefaultTestDescriptor method = new DefaultTestDescriptor(methodId, previousResult.getClassName(), methodResult.getName(), previousResult.getClassDisplayName(), methodResult.getDisplayName());
+            resultProcessor.started(method, new TestStartEvent(methodResult.getEndTime() - methodResult.getDuration(), classId));
+            resultProcessor.completed(methodId, new TestCompleteEvent(methodResult.getEndTime(), methodResult.getResultType()));
+        }
+        resultProcessor.completed(classId, new TestCompleteEvent(previousResult.getStartTime() + previousResult.getDuration()));
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
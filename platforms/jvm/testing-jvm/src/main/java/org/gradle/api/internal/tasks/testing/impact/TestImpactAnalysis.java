@@ -0,0 +1,264 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
+import org.gradle.api.internal.tasks.testing.worker.LoadedClassesRecorder;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.util.internal.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A prototype of test impact analysis, enabled with the internal flag {@code org.gradle.internal.test.impact-analysis}.
+ *
+ * <p>The test workers record the classes that each test class loads from the directories of the test runtime classpath,
+ * see {@link LoadedClassesRecorder}. The record is kept in the binary results directory, together with the hashes of the
+ * files of the test runtime classpath. The next run compares these hashes with the current ones, and skips the test
+ * classes that did not load any of the changed classes, unless they failed the previous time. The previous results of a
+ * skipped test class, without its output, are carried forward into the results of this run, see {@link SkipUnaffectedTestClassProcessor}.</p>
+ *
+ * <p>A test class is only skipped when its previous results are complete. This is why the classes that run while the tests are
+ * filtered, for example with {@code --tests}, are removed from the record, and why a test class without previous results runs.</p>
+ *
+ * <p>All test classes run when there is no record of the previous run, when the JVM arguments of the test workers changed,
+ * when a jar or a resource of the test runtime classpath changed, or when more than a fifth of the classes changed. A test
+ * class without a record, for example a new one, always runs. Dependencies that are not visible as loaded classes, like
+ * a class that is first loaded in a later run through reflection, are not taken into account.</p>
+ */
+public class TestImpactAnalysis {
+    public static final InternalFlag ENABLED = new InternalFlag("org.gradle.internal.test.impact-analysis");
+
+    private static final Logger LOGGER = Logging.getLogger(TestImpactAnalysis.class);
+    private static final String RECORD_FILE_NAME = "test-impact.bin";
+    private static final int MAX_CHANGED_CLASSES_PERCENTAGE = 20;
+
+    private final String taskPath;
+    private final File binaryResultsDir;
+    private final File workerOutputDir;
+    private final TestImpactRecord currentRecord;
+    private final Set<String> changedClasses;
+    private final Map<String, Set<String>> unaffectedTestClassDependencies;
+    private final Map<String, TestClassResult> skippableTestClasses;
+    private final boolean testsFiltered;
+    @Nullable
+    private final String fullRunReason;
+    private int detectedTestClasses;
+    private int skippedTestClasses;
+
+    private TestImpactAnalysis(
+        String taskPath, File binaryResultsDir, File workerOutputDir, TestImpactRecord currentRecord, Set<String> changedClasses,
+        Map<String, Set<String>> unaffectedTestClassDependencies, Map<String, TestClassResult> skippableTestClasses, boolean testsFiltered,
+        @Nullable String fullRunReason
+    ) {
+        this.taskPath = taskPath;
+        this.binaryResultsDir = binaryResultsDir;
+        this.workerOutputDir = workerOutputDir;
+        this.currentRecord = currentRecord;
+        this.changedClasses = changedClasses;
+        this.unaffectedTestClassDependencies = unaffectedTestClassDependencies;
+        this.skippableTestClasses = skippableTestClasses;
+        this.testsFiltered = testsFiltered;
+        this.fullRunReason = fullRunReason;
+    }
+
+    /**
+     * Compares the current test runtime classpath and JVM arguments with the record of the previous run, which is read from
+     * the binary results directory before it is cleaned, together with the previous test results. The loaded classes are
+     * written by the test workers to the given directory.
+     */
+    public static TestImpactAnalysis prepare(
+        String taskPath, File binaryResultsDir, File workerOutputDir, Iterable<File> classpath, List<String> jvmArguments,
+        Set<String> previousFailedTestClasses, boolean testsFiltered, FileHasher fileHasher
+    ) {
+        GFileUtils.deleteDirectory(workerOutputDir);
+        GFileUtils.mkdirs(workerOutputDir);
+        TestImpactRecord currentRecord = TestImpactRecord.snapshot(classpath, jvmArguments, fileHasher);
+        TestImpactRecord previousRecord = TestImpactRecord.read(new File(binaryResultsDir, RECORD_FILE_NAME));
+        if (previousRecord == null) {
+            return fullRun(taskPath, binaryResultsDir, workerOutputDir, currentRecord, testsFiltered, "there is no record of the previous run");
+        }
+        if (!previousRecord.getJvmArgumentsHash().equals(currentRecord.getJvmArgumentsHash())) {
+            return fullRun(taskPath, binaryResultsDir, workerOutputDir, currentRecord, testsFiltered, "the JVM arguments changed");
+        }
+        if (!previousRecord.getOtherFileHashes().equals(currentRecord.getOtherFileHashes())) {
+            return fullRun(taskPath, binaryResultsDir, workerOutputDir, currentRecord, testsFiltered, "a jar or a resource of the test runtime classpath changed");
+        }
+
+        Set<String> changedClasses = currentRecord.changedClassesSince(previousRecord);
+        // The dependencies of a test class that did not load any of the changed classes are still accurate
+        Map<String, Set<String>> unaffectedTestClassDependencies = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : previousRecord.getTestClassDependencies().entrySet()) {
+            if (Collections.disjoint(entry.getValue(), changedClasses)) {
+                unaffectedTestClassDependencies.put(entry.getKey(), entry.getValue());
+            }
+        }
+        String fullRunReason = null;
+        Map<String, TestClassResult> skippableTestClasses = new HashMap<String, TestClassResult>();
+        if (changedClasses.size() * 100L > currentRecord.getClassHashes().size() * (long) MAX_CHANGED_CLASSES_PERCENTAGE) {
+            fullRunReason = changedClasses.size() + " of " + currentRecord.getClassHashes().size() + " classes changed";
+        } else {
+            Set<String> unaffectedTestClasses = new HashSet<String>(unaffectedTestClassDependencies.keySet());
+            unaffectedTestClasses.removeAll(previousFailedTestClasses);
+            skippableTestClasses.putAll(readPreviousResults(binaryResultsDir, unaffectedTestClasses));
+        }
+        return new TestImpactAnalysis(taskPath, binaryResultsDir, workerOutputDir, currentRecord, changedClasses, unaffectedTestClassDependencies, skippableTestClasses, testsFiltered, fullRunReason);
+    }
+
+    private static TestImpactAnalysis fullRun(String taskPath, File binaryResultsDir, File workerOutputDir, TestImpactRecord currentRecord, boolean testsFiltered, String reason) {
+        return new TestImpactAnalysis(taskPath, binaryResultsDir, workerOutputDir, currentRecord, Collections.<String>emptySet(),
+            Collections.<String, Set<String>>emptyMap(), Collections.<String, TestClassResult>emptyMap(), testsFiltered, reason);
+    }
+
+    /**
+     * Reads the previous results of the given test classes that have at least one test.
+     */
+    private static Map<String, TestClassResult> readPreviousResults(File binaryResultsDir, final Set<String> testClasses) {
+        final Map<String, TestClassResult> previousResults = new HashMap<String, TestClassResult>();
+        TestResultSerializer serializer = new TestResultSerializer(binaryResultsDir);
+        if (serializer.isHasResults()) {
+            serializer.read(new Action<TestClassResult>() {
+                @Override
+                public void execute(TestClassResult testClassResult) {
+                    if (testClasses.contains(testClassResult.getClassName()) && testClassResult.getTestsCount() > 0) {
+                        previousResults.put(testClassResult.getClassName(), testClassResult);
+                    }
+                }
+            });
+        }
+        return previousResults;
+    }
+
+    /**
+     * The JVM arguments that make the test workers record the loaded classes.
+     */
+    public List<String> getWorkerJvmArguments(File agentJar) {
+        return Arrays.asList("-javaagent:" + agentJar.getAbsolutePath(), "-D" + LoadedClassesRecorder.OUTPUT_DIR_SYS_PROPERTY + "=" + workerOutputDir.getAbsolutePath());
+    }
+
+    /**
+     * Returns true when the given detected test class has to run. Not thread-safe, test classes are detected by a single thread.
+     */
+    public boolean shouldRun(String testClassName) {
+        detectedTestClasses++;
+        if (skippableTestClasses.containsKey(testClassName)) {
+            skippedTestClasses++;
+            return false;
+        }
+        return true;
+    }
+
+    public int getSkippedTestClasses() {
+        return skippedTestClasses;
+    }
+
+    /**
+     * The test classes that are skipped when they are detected.
+     */
+    public Set<String> getSkippableTestClasses() {
+        return skippableTestClasses.keySet();
+    }
+
+    /**
+     * Returns the previous results of a test class that is skipped.
+     */
+    public TestClassResult getPreviousResult(String testClassName) {
+        TestClassResult previousResult = skippableTestClasses.get(testClassName);
+        if (previousResult == null) {
+            throw new IllegalArgumentException("Test class " + testClassName + " is not skipped.");
+        }
+        return previousResult;
+    }
+
+    /**
+     * Records the dependencies of the test classes that ran and of the ones that are still unaffected into the binary
+     * results directory, which has been cleaned since the analysis was prepared, and reports what was skipped. When the tests
+     * are filtered, the test classes that ran are removed from the record instead, as their results may be incomplete.
+     */
+    public void recordRun() {
+        Map<String, Set<String>> testClassDependencies = new HashMap<String, Set<String>>(unaffectedTestClassDependencies);
+        if (testsFiltered) {
+            testClassDependencies.keySet().removeAll(readWorkerOutput().keySet());
+        } else {
+            testClassDependencies.putAll(readWorkerOutput());
+        }
+        currentRecord.withTestClassDependencies(testClassDependencies).write(new File(binaryResultsDir, RECORD_FILE_NAME));
+
+        if (fullRunReason != null) {
+            LOGGER.info("Test impact analysis ran all {} test classes of {} because {}.", detectedTestClasses, taskPath, fullRunReason);
+        } else {
+            LOGGER.lifecycle("Test impact analysis skipped {} of {} test classes of {}, which did not load any of the {} changed classes. Their previous results are kept.",
+                skippedTestClasses, detectedTestClasses, taskPath, changedClasses.size());
+        }
+    }
+
+    /**
+     * Reads the dependencies of the test classes that ran from the records of the test workers.
+     */
+    private Map<String, Set<String>> readWorkerOutput() {
+        Map<String, Set<String>> testClassDependencies = new HashMap<String, Set<String>>();
+        File[] workerOutputFiles = workerOutputDir.listFiles();
+        if (workerOutputFiles == null) {
+            return testClassDependencies;
+        }
+        for (File workerOutputFile : workerOutputFiles) {
+            try {
+                BufferedReader reader = Files.newBufferedReader(workerOutputFile.toPath(), StandardCharsets.UTF_8);
+                try {
+                    Set<String> loadedClasses = new HashSet<String>();
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith(LoadedClassesRecorder.LOADED_CLASS_PREFIX)) {
+                            loadedClasses.add(line.substring(LoadedClassesRecorder.LOADED_CLASS_PREFIX.length()));
+                        } else if (line.startsWith(LoadedClassesRecorder.COMPLETED_TEST_CLASS_PREFIX)) {
+                            String testClassName = line.substring(LoadedClassesRecorder.COMPLETED_TEST_CLASS_PREFIX.length());
+                            Set<String> dependencies = testClassDependencies.get(testClassName);
+                            if (dependencies == null) {
+                                dependencies = new HashSet<String>();
+                                testClassDependencies.put(testClassName, dependencies);
+                            }
+                            dependencies.addAll(loadedClasses);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return testClassDependencies;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state of the test runtime classpath and the JVM arguments of a test run, together with the classes each test class
+ * of the run depends on.
+ */
+class TestImpactRecord {
+    private static final int RECORD_VERSION = 1;
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final HashCode jvmArgumentsHash;
+    private final Map<String, HashCode> classHashes;
+    private final Map<String, HashCode> otherFileHashes;
+    private final Map<String, Set<String>> testClassDependencies;
+
+    TestImpactRecord(HashCode jvmArgumentsHash, Map<String, HashCode> classHashes, Map<String, HashCode> otherFileHashes, Map<String, Set<String>> testClassDependencies) {
+        this.jvmArgumentsHash = jvmArgumentsHash;
+        this.classHashes = classHashes;
+        this.otherFileHashes = otherFileHashes;
+        this.testClassDependencies = testClassDependencies;
+    }
+
+    /**
+     * Takes the current state of the given classpath and JVM arguments. The hashes of the classes in the directories of the
+     * classpath are tracked by class name, so that they can be matched with the loaded classes. Jars and resources are tracked
+     * by path.
+     */
+    static TestImpactRecord snapshot(Iterable<File> classpath, List<String> jvmArguments, FileHasher fileHasher) {
+        Hasher hasher = Hashing.newHasher();
+        for (String jvmArgument : jvmArguments) {
+            hasher.putString(jvmArgument);
+        }
+        Map<String, HashCode> classHashes = new HashMap<String, HashCode>();
+        Map<String, HashCode> otherFileHashes = new HashMap<String, HashCode>();
+        for (File entry : classpath) {
+            if (entry.isDirectory()) {
+                snapshotDirectory(entry.toPath(), fileHasher, classHashes, otherFileHashes);
+            } else if (entry.isFile()) {
+                otherFileHashes.put(entry.getAbsolutePath(), fileHasher.hash(entry));
+            }
+        }
+        return new TestImpactRecord(hasher.hash(), classHashes, otherFileHashes, Collections.<String, Set<String>>emptyMap());
+    }
+
+    private static void snapshotDirectory(final Path root, final FileHasher fileHasher, final Map<String, HashCode> classHashes, final Map<String, HashCode> otherFileHashes) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    HashCode hash = fileHasher.hash(file.toFile(), attributes.size(), attributes.lastModifiedTime().toMillis());
+                    String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+                    if (relativePath.endsWith(CLASS_FILE_EXTENSION)) {
+                        String className = relativePath.substring(0, relativePath.length() - CLASS_FILE_EXTENSION.length()).replace('/', '.');
+                        // A class shadowed by an earlier classpath entry is tracked like a resource
+                        if (!classHashes.containsKey(className)) {
+                            classHashes.put(className, hash);
+                            return FileVisitResult.CONTINUE;
+                        }
+                    }
+                    otherFileHashes.put(file.toAbsolutePath().toString(), hash);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    TestImpactRecord withTestClassDependencies(Map<String, Set<String>> testClassDependencies) {
+        return new TestImpactRecord(jvmArgumentsHash, classHashes, otherFileHashes, testClassDependencies);
+    }
+
+    HashCode getJvmArgumentsHash() {
+        return jvmArgumentsHash;
+    }
+
+    Map<String, HashCode> getClassHashes() {
+        return classHashes;
+    }
+
+    Map<String, HashCode> getOtherFileHashes() {
+        return otherFileHashes;
+    }
+
+    Map<String, Set<String>> getTestClassDependencies() {
+        return testClassDependencies;
+    }
+
+    /**
+     * Returns the classes that were added, removed or changed since the given record was taken.
+     */
+    Set<String> changedClassesSince(TestImpactRecord previous) {
+        Set<String> changedClasses = new HashSet<String>();
+        for (Map.Entry<String, HashCode> entry : classHashes.entrySet()) {
+            if (!entry.getValue().equals(previous.classHashes.get(entry.getKey()))) {
+                changedClasses.add(entry.getKey());
+            }
+        }
+        for (String className : previous.classHashes.keySet()) {
+            if (!classHashes.containsKey(className)) {
+                changedClasses.add(className);
+            }
+        }
+        return changedClasses;
+    }
+
+    /**
+     * Reads the record from the given file, returns {@code null} when there is none or it cannot be read.
+     */
+    @Nullable
+    static TestImpactRecord read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != RECORD_VERSION) {
+                    return null;
+                }
+                HashCode jvmArgumentsHash = HashCode.fromBytes(decoder.readBinary());
+                List<String> classNames = new ArrayList<String>();
+                Map<String, HashCode> classHashes = new HashMap<String, HashCode>();
+                int classCount = decoder.readSmallInt();
+                for (int i = 0; i < classCount; i++) {
+                    String className = decoder.readString();
+                    classNames.add(className);
+                    classHashes.put(className, HashCode.fromBytes(decoder.readBinary()));
+                }
+                Map<String, HashCode> otherFileHashes = new HashMap<String, HashCode>();
+                int otherFileCount = decoder.readSmallInt();
+                for (int i = 0; i < otherFileCount; i++) {
+                    otherFileHashes.put(decoder.readString(), HashCode.fromBytes(decoder.readBinary()));
+                }
+                Map<String, Set<String>> testClassDependencies = new HashMap<String, Set<String>>();
+                int testClassCount = decoder.readSmallInt();
+                for (int i = 0; i < testClassCount; i++) {
+                    String testClassName = decoder.readString();
+                    int dependencyCount = decoder.readSmallInt();
+                    Set<String> dependencies = new HashSet<String>(dependencyCount);
+                    for (int j = 0; j < dependencyCount; j++) {
+                        dependencies.add(classNames.get(decoder.readSmallInt()));
+                    }
+                    testClassDependencies.put(testClassName, dependencies);
+                }
+                return new TestImpactRecord(jvmArgumentsHash, classHashes, otherFileHashes, testClassDependencies);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            // Treated like a missing record, so that all test classes run
+            return null;
+        }
+    }
+
+    /**
+     * Writes the record to the given file. Dependencies on classes that are not part of the record are left out.
+     */
+    void write(File file) {
+        try {
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(RECORD_VERSION);
+                encoder.writeBinary(jvmArgumentsHash.toByteArray());
+                Map<String, Integer> classIndexes = new HashMap<String, Integer>();
+                encoder.writeSmallInt(classHashes.size());
+                for (Map.Entry<String, HashCode> entry : classHashes.entrySet()) {
+                    classIndexes.put(entry.getKey(), classIndexes.size());
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().toByteArray());
+                }
+                encoder.writeSmallInt(otherFileHashes.size());
+                for (Map.Entry<String, HashCode> entry : otherFileHashes.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().toByteArray());
+                }
+                encoder.writeSmallInt(testClassDependencies.size());
+                for (Map.Entry<String, Set<String>> entry : testClassDependencies.entrySet()) {
+                    List<Integer> dependencies = new ArrayList<Integer>(entry.getValue().size());
+                    for (String dependency : entry.getValue()) {
+                        Integer index = classIndexes.get(dependency);
+                        if (index != null) {
+                            dependencies.add(index);
+                        }
+                    }
+                    encoder.writeString(entry.getKey());
+                    encoder.writeSmallInt(dependencies.size());
+                    for (Integer index : dependencies) {
+                        encoder.writeSmallInt(index);
+                    }
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
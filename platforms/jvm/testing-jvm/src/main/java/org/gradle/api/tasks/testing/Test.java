@@ -30,6 +30,7 @@
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.classpath.Module;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.JvmTestExecutionSpec;
 import org.gradle.api.internal.tasks.testing.TestExecutableUtils;
@@ -37,6 +38,7 @@
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAnalysis;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
@@ -70,8 +72,11 @@
 import org.gradle.internal.Cast;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.agents.AgentUtils;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.deprecation.DeprecationLogger;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.jvm.DefaultModularitySpec;
 import org.gradle.internal.jvm.JavaModuleDetector;
 import org.gradle.internal.jvm.UnsupportedJavaRuntimeException;
@@ -94,6 +99,7 @@
 import javax.inject.Inject;
 import java.io.File;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -659,7 +665,27 @@ protected JvmTestExecutionSpec createTestExecutionSpec() {
         boolean testIsModule = javaModuleDetector.isModule(modularity.getInferModulePath().get(), getTestClassesDirs());
         FileCollection classpath = javaModuleDetector.inferClasspath(testIsModule, stableClasspath);
         FileCollection modulePath = javaModuleDetector.inferModulePath(testIsModule, stableClasspath);
-        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses(), testIsModule);
+        PreviousTestResults previousTestResults = readPreviousTestResults();
+        TestImpactAnalysis testImpactAnalysis = maybePrepareTestImpactAnalysis(javaForkOptions, previousTestResults.failedTestClasses);
+        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), previousTestResults.failedTestClasses, previousTestResults.testClassDurations, testIsModule, testImpactAnalysis);
+    }
+
+    @Nullable
+    private TestImpactAnalysis maybePrepareTestImpactAnalysis(JavaForkOptions javaForkOptions, Set<String> previousFailedTestClasses) {
+        if (!getServices().get(InternalOptions.class).getOption(TestImpactAnalysis.ENABLED).get()) {
+            return null;
+        }
+        Module agent = getModuleRegistry().findModule(AgentUtils.AGENT_MODULE_NAME);
+        if (agent == null) {
+            getLogger().info("Test impact analysis is not available, the instrumentation agent cannot be found.");
+            return null;
+        }
+        TestImpactAnalysis testImpactAnalysis = TestImpactAnalysis.prepare(
+            getPath(), getBinaryResultsDirectory().getAsFile().get(), new File(getTemporaryDir(), "test-impact"),
+            stableClasspath.getFiles(), javaForkOptions.getAllJvmArgs(), previousFailedTestClasses, !testsAreNotFiltered(), getServices().get(FileHasher.class)
+        );
+        javaForkOptions.jvmArgs(testImpactAnalysis.getWorkerJvmArguments(agent.getImplementationClasspath().getAsFiles().get(0)));
+        return testImpactAnalysis;
     }
 
     private void validateExecutableMatchesToolchain() {
@@ -670,21 +696,36 @@ private void validateExecutableMatchesToolchain() {
                 toolchainExecutable, "toolchain from `javaLauncher` property");
     }
 
-    private Set<String> getPreviousFailedTestClasses() {
+    private PreviousTestResults readPreviousTestResults() {
         TestResultSerializer serializer = new TestResultSerializer(getBinaryResultsDirectory().getAsFile().get());
         if (serializer.isHasResults()) {
-            final Set<String> previousFailedTestClasses = new HashSet<String>();
+            final PreviousTestResults previousTestResults = new PreviousTestResults(new HashSet<String>(), new HashMap<String, Long>());
             serializer.read(new Action<TestClassResult>() {
                 @Override
                 public void execute(TestClassResult testClassResult) {
                     if (testClassResult.getFailuresCount() > 0) {
-                        previousFailedTestClasses.add(testClassResult.getClassName());
+                        previousTestResults.failedTestClasses.add(testClassResult.getClassName());
                     }
+                    previousTestResults.testClassDurations.put(testClassResult.getClassName(), testClassResult.getDuration());
                 }
             });
-            return previousFailedTestClasses;
+            return previousTestResults;
         } else {
-            return Collections.emptySet();
+            return new PreviousTestResults(Collections.<String>emptySet(), Collections.<String, Long>emptyMap());
+        }
+    }
+
+    /**
+     * What test execution needs to know about the previous test run: the test classes that failed,
+     * so they can run first, and how long each test class took, so the test classes can be balanced across forks.
+     */
+    private static class PreviousTestResults {
+        private final Set<String> failedTestClasses;
+        private final Map<String, Long> testClassDurations;
+
+        private PreviousTestResults(Set<String> failedTestClasses, Map<String, Long> testClassDurations) {
+            this.failedTestClasses = failedTestClasses;
+            this.testClassDurations = testClassDurations;
         }
     }
 
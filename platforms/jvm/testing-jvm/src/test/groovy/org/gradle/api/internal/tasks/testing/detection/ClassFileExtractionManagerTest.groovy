@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ClassFileExtractionManagerTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    private final TestFile testDir = tmpDir.testDirectory
+
+    def manager = new ClassFileExtractionManager()
+
+    def "reads class files from the library jars containing their package"() {
+        given:
+        manager.addLibraryJar(jar("first.jar", "com/a/A.class": "A", "com/b/B.class": "B"))
+        manager.addLibraryJar(jar("second.jar", "com/a/C.class": "C"))
+
+        expect:
+        new String(manager.getLibraryClassBytes("com/a/A"), "UTF-8") == "A"
+        new String(manager.getLibraryClassBytes("com/b/B"), "UTF-8") == "B"
+        new String(manager.getLibraryClassBytes("com/a/C"), "UTF-8") == "C"
+        manager.getLibraryClassBytes("com/a/Missing") == null
+        manager.getLibraryClassBytes("org/Missing") == null
+    }
+
+    private TestFile jar(Map<String, String> entries, String name) {
+        def jarFile = testDir.file(name)
+        new ZipOutputStream(new FileOutputStream(jarFile)).withCloseable { out ->
+            entries.each { entryName, content ->
+                out.putNextEntry(new ZipEntry(entryName))
+                out.write(content.getBytes("UTF-8"))
+            }
+        }
+        return jarFile
+    }
+}
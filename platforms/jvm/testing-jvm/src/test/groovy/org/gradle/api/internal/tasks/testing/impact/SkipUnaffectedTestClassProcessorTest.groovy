@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
+import org.gradle.api.tasks.testing.TestResult
+import spock.lang.Specification
+
+class SkipUnaffectedTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def resultProcessor = Mock(TestResultProcessor)
+    def testImpactAnalysis = Stub(TestImpactAnalysis) {
+        shouldRun("org.Affected") >> true
+        shouldRun("org.Unaffected") >> false
+        getPreviousResult("org.Unaffected") >> new TestClassResult(1, "org.Unaffected", 100).add(new TestMethodResult(2, "test", TestResult.ResultType.SUCCESS, 20, 150))
+    }
+    def processor = new SkipUnaffectedTestClassProcessor(testImpactAnalysis, delegate)
+
+    def "reports the previous results of the skipped test classes once the other test classes have completed"() {
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass("org.Affected"))
+        processor.processTestClass(testClass("org.Unaffected"))
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.processTestClass({ it.testClassName == "org.Affected" })
+        0 * delegate._
+        0 * resultProcessor._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate.stop()
+
+        then:
+        1 * resultProcessor.started({ it.composite && it.className == "org.Unaffected" }, { it.startTime == 100 && it.parentId == null })
+
+        then:
+        1 * resultProcessor.started({ !it.composite && it.className == "org.Unaffected" && it.name == "test" }, { it.startTime == 130 && it.parentId != null })
+
+        then:
+        1 * resultProcessor.completed(_, { it.endTime == 150 && it.resultType == TestResult.ResultType.SUCCESS })
+
+        then:
+        1 * resultProcessor.completed(_, { it.endTime == 150 && it.resultType == null })
+        0 * resultProcessor._
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
+}
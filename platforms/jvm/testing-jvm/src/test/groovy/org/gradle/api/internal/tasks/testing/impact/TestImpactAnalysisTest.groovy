@@ -0,0 +1,208 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestImpactAnalysisTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider(getClass())
+
+    def binaryResultsDir = temp.createDir("binary")
+    def workerOutputDir = temp.file("worker-output")
+    def classes = temp.createDir("classes")
+    def testClasses = temp.createDir("test-classes")
+    def jar = temp.file("lib.jar") << "jar"
+    def jvmArguments = ["-Xmx512m"]
+
+    def setup() {
+        (1..5).each { classes.file("org/Class${it}.class") << "class $it" }
+        testClasses.file("org/Test1.class") << "test 1"
+        testClasses.file("org/Test2.class") << "test 2"
+        classes.file("resource.txt") << "resource"
+    }
+
+    def "runs all test classes when there is no record of the previous run"() {
+        when:
+        def analysis = prepare()
+
+        then:
+        analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+        analysis.skippedTestClasses == 0
+    }
+
+    def "skips the test classes that did not load any of the changed classes"() {
+        given:
+        recordFirstRun()
+        classes.file("org/Class1.class") << "changed"
+
+        when:
+        def analysis = prepare()
+
+        then:
+        analysis.shouldRun("org.Test1")
+        !analysis.shouldRun("org.Test2")
+        analysis.shouldRun("org.NewTest")
+        analysis.skippedTestClasses == 1
+        analysis.skippableTestClasses == ["org.Test2"] as Set
+        analysis.getPreviousResult("org.Test2").results*.name == ["test"]
+    }
+
+    def "runs an unaffected test class without previous results"() {
+        given:
+        recordFirstRun()
+        previousResults("org.Test1")
+        classes.file("org/Class1.class") << "changed"
+
+        when:
+        def analysis = prepare()
+
+        then:
+        analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+    }
+
+    def "removes the test classes that ran from the record when the tests are filtered"() {
+        given:
+        recordFirstRun()
+        classes.file("org/Class2.class") << "changed"
+        def filteredRun = prepare([] as Set, true)
+        ["org.Test1", "org.Test2"].each { filteredRun.shouldRun(it) }
+        workerOutput("worker-2", "C org.Class2", "C org.Test2", "T org.Test2")
+        filteredRun.recordRun()
+        classes.file("org/Class3.class") << "changed"
+
+        when:
+        def analysis = prepare()
+
+        then:
+        !analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+    }
+
+    def "runs a test class that failed the previous time although it is unaffected"() {
+        given:
+        recordFirstRun()
+        classes.file("org/Class1.class") << "changed"
+
+        when:
+        def analysis = prepare(["org.Test2"] as Set)
+
+        then:
+        analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+    }
+
+    def "runs the test classes that loaded a removed class"() {
+        given:
+        recordFirstRun()
+        classes.file("org/Class2.class").delete()
+
+        when:
+        def analysis = prepare()
+
+        then:
+        !analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+    }
+
+    def "runs all test classes when #description"() {
+        given:
+        recordFirstRun()
+        change.call(this)
+
+        when:
+        def analysis = prepare()
+
+        then:
+        analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+
+        where:
+        description                            | change
+        "a jar changed"                        | { it.jar << "changed" }
+        "a resource changed"                   | { it.classes.file("resource.txt") << "changed" }
+        "the JVM arguments changed"            | { it.jvmArguments = ["-Xmx1g"] }
+        "the record cannot be read"            | { it.binaryResultsDir.file("test-impact.bin").text = "broken" }
+        "more than a fifth of classes changed" | { it.classes.file("org/Class1.class") << "changed"; it.classes.file("org/Class3.class") << "changed" }
+    }
+
+    def "keeps the record of unaffected test classes that did not run"() {
+        given:
+        recordFirstRun()
+        classes.file("org/Class1.class") << "changed"
+        def secondRun = prepare()
+        ["org.Test1", "org.Test2"].each { secondRun.shouldRun(it) }
+        workerOutput("worker-2", "C org.Class1", "C org.Test1", "T org.Test1")
+        secondRun.recordRun()
+        classes.file("org/Class1.class") << "changed again"
+
+        when:
+        def analysis = prepare()
+
+        then:
+        analysis.shouldRun("org.Test1")
+        !analysis.shouldRun("org.Test2")
+    }
+
+    def "a test class depends on the classes loaded earlier in the same worker"() {
+        given:
+        def firstRun = prepare()
+        workerOutput("worker-1", "C org.Class1", "C org.Test1", "T org.Test1", "C org.Test2", "T org.Test2")
+        firstRun.recordRun()
+        previousResults("org.Test1", "org.Test2")
+        classes.file("org/Class1.class") << "changed"
+
+        when:
+        def analysis = prepare()
+
+        then:
+        analysis.shouldRun("org.Test1")
+        analysis.shouldRun("org.Test2")
+    }
+
+    private void recordFirstRun() {
+        def firstRun = prepare()
+        workerOutput("worker-1", "C org.Class1", "C org.Test1", "T org.Test1")
+        workerOutput("worker-2", "C org.Class2", "C org.Test2", "C java.lang.Unknown", "T org.Test2")
+        firstRun.recordRun()
+        previousResults("org.Test1", "org.Test2")
+    }
+
+    private void previousResults(String... testClasses) {
+        def results = testClasses.toList().withIndex().collect { String testClass, int index ->
+            new TestClassResult(index + 1, testClass, 0).add(new TestMethodResult(index + 100, "test", TestResult.ResultType.SUCCESS, 10, 10))
+        }
+        new TestResultSerializer(binaryResultsDir).write(results)
+    }
+
+    private void workerOutput(String worker, String... lines) {
+        new File(workerOutputDir, "${worker}.txt").text = lines.collect { it + "\n" }.join("")
+    }
+
+    private TestImpactAnalysis prepare(Set<String> previousFailedTestClasses = [] as Set, boolean testsFiltered = false) {
+        TestImpactAnalysis.prepare(":test", binaryResultsDir, workerOutputDir, [classes, testClasses, jar], jvmArguments, previousFailedTestClasses, testsFiltered, TestFiles.fileHasher())
+    }
+}
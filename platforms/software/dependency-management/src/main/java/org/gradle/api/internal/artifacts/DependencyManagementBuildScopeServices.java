@@ -33,6 +33,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryDisabler;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParsedPomCache;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.CachingVersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme;
@@ -95,6 +96,7 @@
 import org.gradle.internal.build.BuildState;
 import org.gradle.internal.build.BuildStateRegistry;
 import org.gradle.internal.buildoption.FeatureFlags;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classpath.ClasspathBuilder;
 import org.gradle.internal.classpath.ClasspathWalker;
 import org.gradle.internal.code.UserCodeApplicationContext;
@@ -183,6 +185,7 @@ void configure(ServiceRegistration registration) {
         registration.add(DefaultComponentSelectorConverter.class);
         registration.add(ProjectDependencyResolver.class);
         registration.add(DependencyGraphResolver.class);
+        registration.add(ParsedPomCache.class);
     }
 
     DependencyResolutionManagementInternal createSharedDependencyResolutionServices(
@@ -308,7 +311,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(
         ProducerGuard<ExternalResourceName> producerGuard,
         FileResourceRepository fileResourceRepository,
         ChecksumService checksumService,
-        StartParameterResolutionOverride startParameterResolutionOverride
+        StartParameterResolutionOverride startParameterResolutionOverride,
+        InternalOptions internalOptions
     ) {
         return artifactCachesProvider.withWritableCache((md, manager) -> new RepositoryTransportFactory(
             resourceConnectorFactories,
@@ -320,7 +324,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(
             startParameterResolutionOverride,
             producerGuard,
             fileResourceRepository,
-            checksumService
+            checksumService,
+            internalOptions
         ));
     }
 
@@ -332,9 +337,11 @@ DependencyVerificationOverride createDependencyVerificationOverride(
         DocumentationRegistry documentationRegistry,
         ListenerManager listenerManager,
         BuildCommencedTimeProvider timeProvider,
-        ServiceRegistry serviceRegistry
+        ServiceRegistry serviceRegistry,
+        BuildScopedCacheBuilderFactory cacheBuilderFactory,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory
     ) {
-        DependencyVerificationOverride override = startParameterResolutionOverride.dependencyVerificationOverride(buildOperationExecutor, checksumService, signatureVerificationServiceFactory, documentationRegistry, timeProvider, () -> serviceRegistry.get(GradleProperties.class), listenerManager.getBroadcaster(FileResourceListener.class));
+        DependencyVerificationOverride override = startParameterResolutionOverride.dependencyVerificationOverride(buildOperationExecutor, checksumService, signatureVerificationServiceFactory, documentationRegistry, timeProvider, () -> serviceRegistry.get(GradleProperties.class), listenerManager.getBroadcaster(FileResourceListener.class), cacheBuilderFactory, inMemoryCacheDecoratorFactory);
         registerBuildFinishedHooks(listenerManager, override);
         return override;
     }
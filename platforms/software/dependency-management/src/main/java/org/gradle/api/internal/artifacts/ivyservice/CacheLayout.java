@@ -76,6 +76,7 @@ public enum CacheLayout {
         .changedToWithConflict(100, "8.0-milestone-5")
         .changedTo(105, "8.1-rc-2")
         .changedTo(106, "8.2-milestone-1")
+        .changedTo(107, "8.6-rc-1")
     ),
 
     RESOURCES(ROOT, "resources", introducedIn("1.9-rc-1")),
@@ -20,6 +20,7 @@
 import com.google.common.collect.Sets;
 import org.gradle.api.Action;
 import org.gradle.api.artifacts.ComponentMetadataSupplierDetails;
+import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.attributes.AttributeContainer;
@@ -50,6 +51,7 @@
 import org.gradle.internal.resolve.caching.ComponentMetadataSupplierRuleExecutor;
 import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 import org.gradle.internal.resolve.result.ComponentSelectionContext;
 import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult;
@@ -65,6 +67,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.resolve.ResolveExceptionAnalyzer.hasCriticalFailure;
 import static org.gradle.internal.resolve.ResolveExceptionAnalyzer.isCriticalFailure;
@@ -82,6 +85,7 @@ public class DynamicVersionResolver {
     private final ComponentMetadataProcessorFactory componentMetadataProcessor;
     private final ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor;
     private final CachePolicy cachePolicy;
+    private final Map<ModuleIdentifier, DefaultBuildableModuleVersionListingResolveResult[]> prefetchedVersionListings = new ConcurrentHashMap<>();
 
     public DynamicVersionResolver(
         VersionedComponentChooser versionedComponentChooser, VersionParser versionParser,
@@ -106,9 +110,10 @@ public void resolve(ModuleDependencyMetadata dependency, VersionSelector version
         LOGGER.debug("Attempting to resolve version for {} using repositories {}", requested, repositoryNames);
         List<Throwable> errors = new ArrayList<>();
 
+        DefaultBuildableModuleVersionListingResolveResult[] prefetched = prefetchedVersionListings.remove(requested.getModuleIdentifier());
         List<RepositoryResolveState> resolveStates = Lists.newArrayListWithCapacity(repositories.size());
-        for (ModuleComponentRepository<ModuleComponentGraphResolveState> repository : repositories) {
-            resolveStates.add(new RepositoryResolveState(versionedComponentChooser, dependency, repository, versionSelector, rejectedVersionSelector, versionParser, consumerAttributes, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy));
+        for (int i = 0; i < repositories.size(); i++) {
+            resolveStates.add(new RepositoryResolveState(versionedComponentChooser, dependency, repositories.get(i), versionSelector, rejectedVersionSelector, versionParser, consumerAttributes, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy, prefetched == null ? null : prefetched[i]));
         }
 
         final RepositoryChainModuleResolution latestResolved = findLatestModule(resolveStates, errors);
@@ -128,6 +133,48 @@ public void resolve(ModuleDependencyMetadata dependency, VersionSelector version
         }
     }
 
+    /**
+     * Lists the versions of the requested module in every repository, when none of the repositories can list them without remote access.
+     * The remote listings are kept until the dependency is resolved, where they replace the remote access which would otherwise happen then,
+     * so that failures and attempted locations are reported the same way.
+     */
+    public void prefetchVersionListing(ModuleDependencyMetadata dependency) {
+        ModuleIdentifier moduleId = dependency.getSelector().getModuleIdentifier();
+        if (prefetchedVersionListings.containsKey(moduleId)) {
+            return;
+        }
+        for (ModuleComponentRepository<ModuleComponentGraphResolveState> repository : repositories) {
+            DefaultBuildableModuleVersionListingResolveResult localResult = new DefaultBuildableModuleVersionListingResolveResult();
+            repository.getLocalAccess().listModuleVersions(dependency, localResult);
+            if (localResult.hasResult()) {
+                // Resolution will use the local result, and may not need any remote access
+                return;
+            }
+        }
+        DefaultBuildableModuleVersionListingResolveResult[] remoteResults = new DefaultBuildableModuleVersionListingResolveResult[repositories.size()];
+        for (int i = 0; i < repositories.size(); i++) {
+            DefaultBuildableModuleVersionListingResolveResult remoteResult = new DefaultBuildableModuleVersionListingResolveResult();
+            try {
+                repositories.get(i).getRemoteAccess().listModuleVersions(dependency, remoteResult);
+            } catch (Exception e) {
+                // Let the resolution perform the remote access again and report the failure
+                LOGGER.debug("Failed to list versions of {} ahead of resolution.", moduleId, e);
+                continue;
+            }
+            if (remoteResult.hasResult()) {
+                remoteResults[i] = remoteResult;
+            }
+        }
+        prefetchedVersionListings.put(moduleId, remoteResults);
+    }
+
+    /**
+     * Discards the listings of modules which were prefetched but not resolved, for example because another version of the module was selected.
+     */
+    public void discardPrefetchedVersionListings() {
+        prefetchedVersionListings.clear();
+    }
+
     private void found(BuildableComponentIdResolveResult result, List<RepositoryResolveState> resolveStates, RepositoryChainModuleResolution latestResolved) {
         for (RepositoryResolveState resolveState : resolveStates) {
             resolveState.registerAttempts(result);
@@ -261,7 +308,7 @@ private static class RepositoryResolveState implements ComponentSelectionContext
         private ModuleComponentIdentifier firstRejected = null;
 
 
-        public RepositoryResolveState(VersionedComponentChooser versionedComponentChooser, ModuleDependencyMetadata dependency, ModuleComponentRepository<ModuleComponentGraphResolveState> repository, VersionSelector versionSelector, VersionSelector rejectedVersionSelector, VersionParser versionParser, AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor, CachePolicy cachePolicy) {
+        public RepositoryResolveState(VersionedComponentChooser versionedComponentChooser, ModuleDependencyMetadata dependency, ModuleComponentRepository<ModuleComponentGraphResolveState> repository, VersionSelector versionSelector, VersionSelector rejectedVersionSelector, VersionParser versionParser, AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor, CachePolicy cachePolicy, @Nullable DefaultBuildableModuleVersionListingResolveResult prefetchedListing) {
             this.versionedComponentChooser = versionedComponentChooser;
             this.dependency = dependency;
             this.versionSelector = versionSelector;
@@ -274,7 +321,7 @@ public RepositoryResolveState(VersionedComponentChooser versionedComponentChoose
             this.cachePolicy = cachePolicy;
             this.attemptCollector = new AttemptCollector();
             this.consumerAttributes = buildAttributes(consumerAttributes, attributesFactory);
-            versionListingResult = new VersionListResult(dependency, repository);
+            versionListingResult = new VersionListResult(dependency, repository, prefetchedListing);
         }
 
         private ImmutableAttributes buildAttributes(AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory) {
@@ -519,16 +566,25 @@ private static class VersionListResult {
         private final DefaultBuildableModuleVersionListingResolveResult result = new DefaultBuildableModuleVersionListingResolveResult();
         private final ModuleComponentRepository<?> repository;
         private final ModuleDependencyMetadata dependency;
+        private final DefaultBuildableModuleVersionListingResolveResult prefetchedListing;
 
         private boolean searchedLocally;
         private boolean searchedRemotely;
 
-        public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRepository<?> repository) {
+        public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRepository<?> repository, @Nullable DefaultBuildableModuleVersionListingResolveResult prefetchedListing) {
             this.dependency = dependency;
             this.repository = repository;
+            this.prefetchedListing = prefetchedListing;
         }
 
         void resolve() {
+            if (prefetchedListing != null && !searchedRemotely) {
+                // Nothing was available locally when the versions were listed ahead: use the remote listing
+                searchedLocally = true;
+                searchedRemotely = true;
+                applyPrefetchedListing();
+                return;
+            }
             if (!searchedLocally) {
                 searchedLocally = true;
                 process(dependency, repository.getLocalAccess());
@@ -557,6 +613,15 @@ public void applyTo(ResourceAwareResolveResult target) {
             result.applyTo(target);
         }
 
+        private void applyPrefetchedListing() {
+            prefetchedListing.applyTo(result);
+            if (prefetchedListing.getState() == BuildableModuleVersionListingResolveResult.State.Failed) {
+                result.failed(prefetchedListing.getFailure());
+            } else {
+                result.listed(prefetchedListing.getVersions());
+            }
+        }
+
         private void process(ModuleDependencyMetadata dynamicVersionDependency, ModuleComponentRepositoryAccess<?> moduleAccess) {
             moduleAccess.listModuleVersions(dynamicVersionDependency, result);
         }
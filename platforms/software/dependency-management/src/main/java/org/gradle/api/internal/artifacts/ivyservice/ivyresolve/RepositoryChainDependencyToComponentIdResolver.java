@@ -73,6 +73,18 @@ public void resolve(DependencyMetadata dependency, VersionSelector acceptor, @Nu
         }
     }
 
+    @Override
+    public void prefetchVersionListing(DependencyMetadata dependency) {
+        if (dependency.getSelector() instanceof ModuleComponentSelector) {
+            dynamicRevisionResolver.prefetchVersionListing(toModuleDependencyMetadata(dependency));
+        }
+    }
+
+    @Override
+    public void discardPrefetchedVersionListings() {
+        dynamicRevisionResolver.discardPrefetchedVersionListings();
+    }
+
     private ModuleDependencyMetadata toModuleDependencyMetadata(DependencyMetadata dependency) {
         if (dependency instanceof ModuleDependencyMetadata) {
             return (ModuleDependencyMetadata) dependency;
@@ -64,15 +64,24 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
     private final VersionSelectorScheme mavenVersionSelectorScheme;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
     private final MavenMutableModuleMetadataFactory metadataFactory;
+    private final ParsedPomCache parsedPomCache;
 
     public GradlePomModuleDescriptorParser(VersionSelectorScheme gradleVersionSelectorScheme,
                                            ImmutableModuleIdentifierFactory moduleIdentifierFactory,
                                            FileResourceRepository fileResourceRepository, MavenMutableModuleMetadataFactory metadataFactory) {
+        this(gradleVersionSelectorScheme, moduleIdentifierFactory, fileResourceRepository, metadataFactory, new ParsedPomCache());
+    }
+
+    public GradlePomModuleDescriptorParser(VersionSelectorScheme gradleVersionSelectorScheme,
+                                           ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+                                           FileResourceRepository fileResourceRepository, MavenMutableModuleMetadataFactory metadataFactory,
+                                           ParsedPomCache parsedPomCache) {
         super(fileResourceRepository);
         this.gradleVersionSelectorScheme = gradleVersionSelectorScheme;
         mavenVersionSelectorScheme = new MavenVersionSelectorScheme(gradleVersionSelectorScheme);
         this.moduleIdentifierFactory = moduleIdentifierFactory;
         this.metadataFactory = metadataFactory;
+        this.parsedPomCache = parsedPomCache;
     }
 
     @Override
@@ -239,7 +248,8 @@ private ModuleDependencyMetadata toDependencyMetadata(ModuleComponentSelector se
     }
 
     private PomReader parsePomResource(DescriptorParseContext parseContext, LocallyAvailableExternalResource localResource, Map<String, String> childProperties) throws SAXException, IOException {
-        PomReader pomReader = new PomReader(localResource, moduleIdentifierFactory, childProperties);
+        // Parent POMs and imported BOMs are shared by many modules, so reuse their parsed content
+        PomReader pomReader = new PomReader(parsedPomCache.getDocument(localResource), localResource, moduleIdentifierFactory, childProperties);
         GradlePomModuleDescriptorBuilder mdBuilder = new GradlePomModuleDescriptorBuilder(pomReader, gradleVersionSelectorScheme, mavenVersionSelectorScheme);
         doParsePom(parseContext, mdBuilder, pomReader);
         return pomReader;
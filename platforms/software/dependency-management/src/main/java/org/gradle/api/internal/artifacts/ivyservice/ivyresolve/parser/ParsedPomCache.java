@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the parsed documents of parent POMs and imported BOMs for the entire build.
+ *
+ * The same parent or BOM is usually referenced by many modules, such as all the modules of a framework
+ * sharing a parent POM. Each module needs its own {@link PomReader}, since property values depend on the child
+ * POM, but the document can be parsed once. DOM documents are not safe for concurrent use, so each caller
+ * receives its own copy of the cached document.
+ */
+@ServiceScope(Scopes.Build.class)
+public class ParsedPomCache {
+    private final ConcurrentMap<PomFile, Document> documents = new ConcurrentHashMap<>();
+
+    public Document getDocument(LocallyAvailableExternalResource resource) {
+        PomFile key = new PomFile(resource.getFile());
+        Document document = documents.get(key);
+        if (document == null) {
+            Document parsed = PomReader.parsePom(resource);
+            document = documents.putIfAbsent(key, parsed);
+            if (document == null) {
+                document = parsed;
+            }
+        }
+        // Cloning a document can update its internal state, so never let callers access the cached instance
+        synchronized (document) {
+            return (Document) document.cloneNode(true);
+        }
+    }
+
+    /**
+     * Identifies the content of a POM file. Files in the artifact cache are immutable and are stored under their hash,
+     * but POMs in local repositories may be changed in place.
+     */
+    private static class PomFile {
+        private final File file;
+        private final long length;
+        private final long lastModified;
+
+        PomFile(File file) {
+            this.file = file;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PomFile pomFile = (PomFile) o;
+            return length == pomFile.length && lastModified == pomFile.lastModified && file.equals(pomFile.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, length, lastModified);
+        }
+    }
+}
@@ -139,18 +139,18 @@ public InputSource resolveEntity(String publicId, String systemId) {
     private final Element parentElement;
 
     public PomReader(final LocallyAvailableExternalResource resource, ImmutableModuleIdentifierFactory moduleIdentifierFactory, Map<String, String> childPomProperties) throws SAXException {
+        this(parsePom(resource), resource, moduleIdentifierFactory, childPomProperties);
+    }
+
+    /**
+     * Creates a reader for a POM that has already been parsed from the given resource. The reader takes ownership of the document.
+     */
+    public PomReader(Document pomDomDoc, LocallyAvailableExternalResource resource, ImmutableModuleIdentifierFactory moduleIdentifierFactory, Map<String, String> childPomProperties) throws SAXException {
         this.moduleIdentifierFactory = moduleIdentifierFactory;
         setPomProperties(childPomProperties);
-        final String systemId = resource.getFile().toURI().toASCIIString();
-        Document pomDomDoc = resource.withContent(inputStream -> {
-            try {
-                return parseToDom(inputStream, systemId);
-            } catch (Exception e) {
-                throw new MetaDataParseException("POM", resource, e);
-            }
-        }).getResult();
         projectElement = pomDomDoc.getDocumentElement();
         if (!PROJECT.equals(projectElement.getNodeName()) && !MODEL.equals(projectElement.getNodeName())) {
+            String systemId = getSystemId(resource);
             throw new SAXParseException("project must be the root tag", systemId, systemId, 0, 0);
         }
         parentElement = getFirstChildElement(projectElement, PARENT);
@@ -250,6 +250,21 @@ private static DocumentBuilder getDocBuilder(EntityResolver entityResolver) {
         }
     }
 
+    public static Document parsePom(final LocallyAvailableExternalResource resource) {
+        final String systemId = getSystemId(resource);
+        return resource.withContent(inputStream -> {
+            try {
+                return parseToDom(inputStream, systemId);
+            } catch (Exception e) {
+                throw new MetaDataParseException("POM", resource, e);
+            }
+        }).getResult();
+    }
+
+    private static String getSystemId(LocallyAvailableExternalResource resource) {
+        return resource.getFile().toURI().toASCIIString();
+    }
+
     private static Document parseToDom(InputStream stream, String systemId) throws IOException, SAXException {
         // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
         // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
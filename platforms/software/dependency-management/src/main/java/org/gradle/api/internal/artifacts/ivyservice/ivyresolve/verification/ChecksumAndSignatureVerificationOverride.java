@@ -39,12 +39,15 @@
 import org.gradle.api.internal.properties.GradleProperties;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.scopes.BuildScopedCacheBuilderFactory;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
 import org.gradle.internal.component.external.model.ModuleComponentGraphResolveState;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.hash.ChecksumService;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.logging.ConsoleRenderer;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
@@ -77,6 +80,7 @@ public class ChecksumAndSignatureVerificationOverride implements DependencyVerif
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicBoolean hasFatalFailure = new AtomicBoolean();
     private final DependencyVerificationReportWriter reportWriter;
+    private final VerifiedArtifactsCache verifiedArtifactsCache;
 
     public ChecksumAndSignatureVerificationOverride(
         BuildOperationExecutor buildOperationExecutor,
@@ -88,7 +92,10 @@ public ChecksumAndSignatureVerificationOverride(
         DocumentationRegistry documentationRegistry,
         File reportsDirectory,
         Factory<GradleProperties> gradlePropertiesFactory,
-        FileResourceListener fileResourceListener
+        FileResourceListener fileResourceListener,
+        BuildScopedCacheBuilderFactory cacheBuilderFactory,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
+        boolean refreshKeys
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.checksumService = checksumService;
@@ -105,7 +112,9 @@ public ChecksumAndSignatureVerificationOverride(
             throw new DependencyVerificationException("Unable to read dependency verification metadata from " + verificationsFile, e.getCause());
         }
         BuildTreeDefinedKeys localKeyring = new BuildTreeDefinedKeys(verificationsFile.getParentFile(), verifier.getConfiguration().getKeyringFormat());
-        this.signatureVerificationService = signatureVerificationServiceFactory.create(localKeyring, keyServers(), verifier.getConfiguration().isUseKeyServers());
+        boolean useKeyServers = verifier.getConfiguration().isUseKeyServers();
+        this.signatureVerificationService = signatureVerificationServiceFactory.create(localKeyring, keyServers(), useKeyServers);
+        this.verifiedArtifactsCache = new VerifiedArtifactsCache(cacheBuilderFactory, inMemoryCacheDecoratorFactory, checksumService, verificationsFile, localKeyring.getEffectiveKeyringsFile(), keyServers(), useKeyServers, refreshKeys);
     }
 
     private List<URI> keyServers() {
@@ -141,7 +150,15 @@ private void verifyConcurrently() {
                     queue.add(new RunnableBuildOperation() {
                         @Override
                         public void run(BuildOperationContext context) {
-                            verifier.verify(checksumService, signatureVerificationService, ve.kind, ve.artifact, observed(ve.mainFile), observed(ve.signatureFile.create()), f -> {
+                            File mainFile = observed(ve.mainFile);
+                            File signatureFile = observed(ve.signatureFile.create());
+                            HashCode verificationKey = verifiedArtifactsCache.verificationKey(ve.kind, ve.artifact, mainFile, signatureFile);
+                            if (verificationKey != null && verifiedArtifactsCache.isVerified(mainFile, verificationKey)) {
+                                return;
+                            }
+                            AtomicBoolean failed = new AtomicBoolean();
+                            verifier.verify(checksumService, signatureVerificationService, ve.kind, ve.artifact, mainFile, signatureFile, f -> {
+                                failed.set(true);
                                 synchronized (failures) {
                                     failures.put(ve.artifact, new RepositoryAwareVerificationFailure(f, ve.repositoryName));
                                 }
@@ -149,6 +166,9 @@ public void run(BuildOperationContext context) {
                                     hasFatalFailure.set(true);
                                 }
                             });
+                            if (verificationKey != null && !failed.get()) {
+                                verifiedArtifactsCache.markVerified(mainFile, verificationKey);
+                            }
                         }
 
                         @Override
@@ -237,6 +257,7 @@ private File observed(File file) {
     public void stop() {
         closed.set(true);
         signatureVerificationService.stop();
+        verifiedArtifactsCache.stop();
     }
 
     private static class VerificationQuery {
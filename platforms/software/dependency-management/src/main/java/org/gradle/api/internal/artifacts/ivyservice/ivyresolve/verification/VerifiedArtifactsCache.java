@@ -0,0 +1,133 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.scopes.BuildScopedCacheBuilderFactory;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.ChecksumService;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.net.URI;
+import java.util.List;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Remembers, across builds, the artifacts which passed dependency verification without any failure.
+ * An entry is only valid for the same SHA-256 of the artifact and signature files, checked against the
+ * same verification metadata, keyring and key servers, so that unchanged artifacts don't need to be
+ * checksummed with every configured algorithm and have their signatures checked again.
+ *
+ * <p>Nothing is reused when keys are refreshed, so that {@code --refresh-keys} verifies every artifact again.</p>
+ */
+class VerifiedArtifactsCache implements Stoppable {
+    private final ChecksumService checksumService;
+    private final HashCode verificationStateHash;
+    private final boolean refreshKeys;
+    private final PersistentCache store;
+    private final IndexedCache<String, HashCode> cache;
+
+    VerifiedArtifactsCache(
+        BuildScopedCacheBuilderFactory cacheBuilderFactory,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
+        ChecksumService checksumService,
+        File verificationsFile,
+        File keyringsFile,
+        List<URI> keyServers,
+        boolean useKeyServers,
+        boolean refreshKeys
+    ) {
+        this.checksumService = checksumService;
+        this.verificationStateHash = computeVerificationStateHash(verificationsFile, keyringsFile, keyServers, useKeyServers);
+        this.refreshKeys = refreshKeys;
+        store = cacheBuilderFactory.createCacheBuilder("dependency-verification")
+            .withDisplayName("Dependency verification cache")
+            .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
+            .open();
+        cache = store.createIndexedCache(
+            IndexedCacheParameters.of(
+                "verified-artifacts",
+                BaseSerializerFactory.STRING_SERIALIZER,
+                new HashCodeSerializer()
+            ).withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(2000, true)));
+    }
+
+    private HashCode computeVerificationStateHash(File verificationsFile, File keyringsFile, List<URI> keyServers, boolean useKeyServers) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(checksumService.sha256(verificationsFile));
+        if (keyringsFile.exists()) {
+            hasher.putHash(checksumService.sha256(keyringsFile));
+        } else {
+            hasher.putNull();
+        }
+        hasher.putBoolean(useKeyServers);
+        hasher.putInt(keyServers.size());
+        for (URI keyServer : keyServers) {
+            hasher.putString(keyServer.toString());
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Returns the key under which the outcome of verifying the given artifact can be stored,
+     * or null if the artifact is not in a state where its outcome can be remembered.
+     */
+    @Nullable
+    HashCode verificationKey(ArtifactVerificationOperation.ArtifactKind kind, ModuleComponentArtifactIdentifier artifact, File mainFile, @Nullable File signatureFile) {
+        if (!mainFile.exists()) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(verificationStateHash);
+        hasher.putString(kind.name());
+        hasher.putString(artifact.getDisplayName());
+        hasher.putHash(checksumService.sha256(mainFile));
+        if (signatureFile != null && signatureFile.exists()) {
+            hasher.putHash(checksumService.sha256(signatureFile));
+        } else {
+            hasher.putNull();
+        }
+        return hasher.hash();
+    }
+
+    boolean isVerified(File mainFile, HashCode verificationKey) {
+        if (refreshKeys) {
+            return false;
+        }
+        return verificationKey.equals(cache.getIfPresent(mainFile.getAbsolutePath()));
+    }
+
+    void markVerified(File mainFile, HashCode verificationKey) {
+        cache.put(mainFile.getAbsolutePath(), verificationKey);
+    }
+
+    @Override
+    public void stop() {
+        store.close();
+    }
+}
@@ -148,5 +148,19 @@ public void resolve(DependencyMetadata dependency, VersionSelector acceptor, @Nu
                 resolver.resolve(dependency, acceptor, rejector, result);
             }
         }
+
+        @Override
+        public void prefetchVersionListing(DependencyMetadata dependency) {
+            for (DependencyToComponentIdResolver resolver : resolvers) {
+                resolver.prefetchVersionListing(dependency);
+            }
+        }
+
+        @Override
+        public void discardPrefetchedVersionListings() {
+            for (DependencyToComponentIdResolver resolver : resolvers) {
+                resolver.discardPrefetchedVersionListings();
+            }
+        }
     }
 }
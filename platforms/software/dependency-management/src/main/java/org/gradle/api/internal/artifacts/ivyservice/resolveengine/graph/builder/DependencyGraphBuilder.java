@@ -21,7 +21,9 @@
 import com.google.common.collect.Sets;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.capabilities.Capability;
@@ -31,6 +33,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.Version;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.RootComponentMetadataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
@@ -67,14 +70,17 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class DependencyGraphBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
+    private static final int PARALLEL_VARIANT_SELECTION_BATCH_SIZE = 16;
     private final ModuleConflictHandler moduleConflictHandler;
     private final Spec<? super DependencyMetadata> edgeFilter;
     private final DependencyToComponentIdResolver idResolver;
@@ -163,7 +169,12 @@ public void resolve(
             variantSelector
         );
 
-        traverseGraph(resolveState);
+        try {
+            traverseGraph(resolveState);
+        } finally {
+            // Listings of modules that were finally not resolved from the repositories are not needed anymore
+            idResolver.discardPrefetchedVersionListings();
+        }
 
         validateGraph(resolveState, resolutionStrategy.isFailingOnDynamicVersions(), resolutionStrategy.isFailingOnChangingVersions());
 
@@ -251,8 +262,12 @@ private boolean resolveEdges(
         if (dependencies.isEmpty()) {
             return false;
         }
+        if (!recomputeSelectors) {
+            maybeListVersionsInParallel(node, dependencies, dependencyFilter);
+        }
         if (performSelectionSerially(dependencies, dependencyFilter, resolveState, recomputeSelectors)) {
             maybeDownloadMetadataInParallel(node, dependencies, dependencyFilter);
+            maybeSelectVariantsInParallel(node, dependencies, dependencyFilter);
             attachToTargetRevisionsSerially(dependencies, dependencyFilter);
             return true;
         } else {
@@ -322,6 +337,58 @@ private void checkForModuleConflicts(ResolveState resolveState, ModuleResolveSta
         }
     }
 
+    /**
+     * Lists the versions of the modules targeted by dynamic selectors in parallel, when there are several such modules.
+     * The listings are only kept by the resolver: versions are still selected serially afterwards, so the graph remains deterministic.
+     */
+    private void maybeListVersionsInParallel(NodeState node, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
+        Map<ModuleIdentifier, DependencyMetadata> requiringListing = null;
+        for (EdgeState dependency : dependencies) {
+            if (!dependencyFilter.isSatisfiedBy(dependency)) {
+                continue;
+            }
+            SelectorState selector = dependency.getSelector();
+            if (selector.canResolve() && selector.getSelector() instanceof ModuleComponentSelector && !selector.isSubstituted() && hasDynamicRequiredVersion(selector) && !isSatisfiedBySelectedVersion(selector)) {
+                // Avoid initializing the map if there are no dynamic selectors (a common case)
+                if (requiringListing == null) {
+                    requiringListing = new LinkedHashMap<>();
+                }
+                requiringListing.putIfAbsent(((ModuleComponentSelector) selector.getSelector()).getModuleIdentifier(), selector.getDependencyMetadata());
+            }
+        }
+        // Only list in parallel if there is more than 1 module to list
+        if (requiringListing != null && requiringListing.size() > 1) {
+            final ImmutableList<DependencyMetadata> toListInParallel = ImmutableList.copyOf(requiringListing.values());
+            LOGGER.debug("Submitting {} version listings to resolve in parallel for {}", toListInParallel.size(), node);
+            buildOperationExecutor.runAll(buildOperationQueue -> {
+                for (final DependencyMetadata dependency : toListInParallel) {
+                    buildOperationQueue.add(new ListVersionsOperation(idResolver, dependency));
+                }
+            }, BuildOperationConstraint.UNCONSTRAINED);
+        }
+    }
+
+    private static boolean hasDynamicRequiredVersion(SelectorState selector) {
+        ResolvedVersionConstraint versionConstraint = selector.getVersionConstraint();
+        if (versionConstraint == null) {
+            return false;
+        }
+        VersionSelector requiredSelector = versionConstraint.getRequiredSelector();
+        return requiredSelector != null && requiredSelector.isDynamic();
+    }
+
+    /**
+     * Returns true when the version already selected for the target module satisfies the selector, so that the selection will reuse it without listing the versions.
+     */
+    private static boolean isSatisfiedBySelectedVersion(SelectorState selector) {
+        ComponentState selected = selector.getTargetModule().getSelected();
+        if (selected == null) {
+            return false;
+        }
+        VersionSelector requiredSelector = selector.getVersionConstraint().getRequiredSelector();
+        return requiredSelector.canShortCircuitWhenVersionAlreadyPreselected() && requiredSelector.accept(selected.getVersion());
+    }
+
     /**
      * Prepares the resolution of edges, either serially or concurrently.
      * It uses a simple heuristic to determine if we should perform concurrent resolution, based on the number of edges, and whether they have unresolved metadata.
@@ -355,6 +422,37 @@ private void maybeDownloadMetadataInParallel(NodeState node, List<EdgeState> dep
         }
     }
 
+    /**
+     * Selects the target variants of the edges in parallel, when there are enough edges targeting external components that have already been resolved.
+     * The selection results are only recorded on the edges: nodes are created and attached serially afterwards, so the graph remains deterministic.
+     */
+    private void maybeSelectVariantsInParallel(NodeState node, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
+        List<EdgeState> requiringSelection = null;
+        for (EdgeState dependency : dependencies) {
+            if (!dependencyFilter.isSatisfiedBy(dependency) || dependency.isConstraint()) {
+                continue;
+            }
+            ComponentState targetComponent = dependency.getTargetComponent();
+            // Only consider external components: selecting the variants of a project may require access to the project state
+            if (targetComponent != null && targetComponent.isSelected() && targetComponent.alreadyResolved() && targetComponent.getComponentId() instanceof ModuleComponentIdentifier) {
+                if (requiringSelection == null) {
+                    requiringSelection = Lists.newArrayList();
+                }
+                requiringSelection.add(dependency);
+            }
+        }
+        // Only select in parallel if there is more than one batch of edges
+        if (requiringSelection != null && requiringSelection.size() > PARALLEL_VARIANT_SELECTION_BATCH_SIZE) {
+            final List<List<EdgeState>> batches = Lists.partition(requiringSelection, PARALLEL_VARIANT_SELECTION_BATCH_SIZE);
+            LOGGER.debug("Selecting variants for {} dependencies in parallel for {}", requiringSelection.size(), node);
+            buildOperationExecutor.runAll(buildOperationQueue -> {
+                for (List<EdgeState> batch : batches) {
+                    buildOperationQueue.add(new SelectVariantsOperation(node, batch));
+                }
+            });
+        }
+    }
+
     private void attachToTargetRevisionsSerially(List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
         // the following only needs to be done serially to preserve ordering of dependencies in the graph: we have visited the edges
         // but we still didn't add the result to the queue. Doing it from resolve threads would result in non-reproducible graphs, where
@@ -65,6 +65,10 @@ class EdgeState implements DependencyGraphEdge {
     private boolean unattached;
     private boolean used;
 
+    private ComponentGraphResolveState preselectedFor;
+    private GraphVariantSelectionResult preselectedVariants;
+    private Exception preselectionFailure;
+
     EdgeState(NodeState from, DependencyState dependencyState, ExcludeSpec transitiveExclusions, ResolveState resolveState) {
         this.from = from;
         this.dependencyState = dependencyState;
@@ -214,6 +218,46 @@ private ImmutableAttributes safeGetAttributes() throws AttributeMergingException
         return cachedAttributes;
     }
 
+    /**
+     * Selects the target variants of the given component ahead of attaching this edge, without mutating the graph.
+     * This allows the selection to happen concurrently for the edges of a node, while the edges are still attached serially.
+     */
+    void preselectTargetVariants(ComponentGraphResolveState targetComponentState) {
+        try {
+            preselectedVariants = selectTargetVariants(targetComponentState);
+        } catch (Exception e) {
+            preselectionFailure = e;
+        }
+        preselectedFor = targetComponentState;
+    }
+
+    @Nullable
+    private GraphVariantSelectionResult takePreselectedVariants(ComponentGraphResolveState targetComponentState) throws Exception {
+        if (preselectedFor == null) {
+            return null;
+        }
+        boolean sameTarget = preselectedFor == targetComponentState;
+        GraphVariantSelectionResult variants = preselectedVariants;
+        Exception failure = preselectionFailure;
+        preselectedFor = null;
+        preselectedVariants = null;
+        preselectionFailure = null;
+        if (!sameTarget) {
+            // The target changed since the selection was made, for example because of conflict resolution
+            return null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return variants;
+    }
+
+    private GraphVariantSelectionResult selectTargetVariants(ComponentGraphResolveState targetComponentState) throws AttributeMergingException {
+        ImmutableAttributes attributes = resolveState.getRoot().getMetadata().getAttributes();
+        attributes = resolveState.getAttributesFactory().concat(attributes, safeGetAttributes());
+        return dependencyMetadata.selectVariants(resolveState.getVariantSelector(), attributes, targetComponentState, resolveState.getAttributesSchema(), dependencyState.getDependency().getSelector().getRequestedCapabilities());
+    }
+
     private void calculateTargetConfigurations(ComponentState targetComponent) {
         ComponentGraphResolveState targetComponentState = targetComponent.getResolveStateOrNull();
         targetNodes.clear();
@@ -257,9 +301,10 @@ private void calculateTargetConfigurations(ComponentState targetComponent) {
 
         GraphVariantSelectionResult targetVariants;
         try {
-            ImmutableAttributes attributes = resolveState.getRoot().getMetadata().getAttributes();
-            attributes = resolveState.getAttributesFactory().concat(attributes, safeGetAttributes());
-            targetVariants = dependencyMetadata.selectVariants(resolveState.getVariantSelector(), attributes, targetComponentState, resolveState.getAttributesSchema(), dependencyState.getDependency().getSelector().getRequestedCapabilities());
+            targetVariants = takePreselectedVariants(targetComponentState);
+            if (targetVariants == null) {
+                targetVariants = selectTargetVariants(targetComponentState);
+            }
         } catch (AttributeMergingException mergeError) {
             targetNodeSelectionFailure = new ModuleVersionResolveException(dependencyState.getRequested(), () -> {
                 Attribute<?> attribute = mergeError.getAttribute();
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import java.util.List;
+
+class SelectVariantsOperation implements RunnableBuildOperation {
+    private final NodeState node;
+    private final List<EdgeState> edges;
+
+    SelectVariantsOperation(NodeState node, List<EdgeState> edges) {
+        this.node = node;
+        this.edges = edges;
+    }
+
+    @Override
+    public void run(BuildOperationContext context) {
+        for (EdgeState edge : edges) {
+            ComponentGraphResolveState targetComponentState = edge.getTargetComponent().getResolveStateOrNull();
+            if (targetComponentState != null) {
+                edge.preselectTargetVariants(targetComponentState);
+            }
+        }
+    }
+
+    @Override
+    public BuildOperationDescriptor.Builder description() {
+        return BuildOperationDescriptor.displayName("Select variants for " + edges.size() + " dependencies of " + node);
+    }
+}
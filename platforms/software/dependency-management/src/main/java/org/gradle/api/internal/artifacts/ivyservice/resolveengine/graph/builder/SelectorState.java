@@ -235,6 +235,13 @@ public boolean isResolved() {
         return resolved;
     }
 
+    /**
+     * Returns true when the dependency of this selector was substituted, or when its substitution failed.
+     */
+    boolean isSubstituted() {
+        return dependencyState.failure != null || !dependencyState.getRequested().equals(dependencyState.getDependency().getSelector());
+    }
+
     /**
      * Marks a selector for reuse,
      * indicating it could be used again for resolution
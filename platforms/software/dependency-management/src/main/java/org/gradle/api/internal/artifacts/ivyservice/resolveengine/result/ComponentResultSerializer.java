@@ -21,12 +21,13 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
 
 import java.io.IOException;
 import java.util.List;
 
 public class ComponentResultSerializer {
-    private final ComponentSelectionReasonSerializer reasonSerializer;
+    private final Serializer<ComponentSelectionReason> reasonSerializer;
     private final ComponentDetailsSerializer componentDetailsSerializer;
     private final SelectedVariantSerializer selectedVariantSerializer;
     private final boolean returnAllVariants;
@@ -36,10 +37,19 @@ public ComponentResultSerializer(
         SelectedVariantSerializer selectedVariantSerializer,
         ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
         boolean returnAllVariants
+    ) {
+        this(componentDetailsSerializer, selectedVariantSerializer, new ComponentSelectionReasonSerializer(componentSelectionDescriptorFactory), returnAllVariants);
+    }
+
+    ComponentResultSerializer(
+        ComponentDetailsSerializer componentDetailsSerializer,
+        SelectedVariantSerializer selectedVariantSerializer,
+        Serializer<ComponentSelectionReason> reasonSerializer,
+        boolean returnAllVariants
     ) {
         this.componentDetailsSerializer = componentDetailsSerializer;
         this.selectedVariantSerializer = selectedVariantSerializer;
-        this.reasonSerializer = new ComponentSelectionReasonSerializer(componentSelectionDescriptorFactory);
+        this.reasonSerializer = reasonSerializer;
         this.returnAllVariants = returnAllVariants;
     }
 
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import org.gradle.api.artifacts.component.ComponentSelector;
 import org.gradle.api.artifacts.result.ComponentSelectionReason;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
@@ -23,6 +24,7 @@
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
 
 import java.io.IOException;
 import java.util.Map;
@@ -31,13 +33,17 @@ public class DependencyResultSerializer {
     private final static byte SUCCESSFUL = 0;
     private final static byte SUCCESSFUL_NOTHING_SELECTED = 1;
     private final static byte FAILED = 2;
-    private final ComponentSelectionReasonSerializer componentSelectionReasonSerializer;
+    private final Serializer<ComponentSelectionReason> componentSelectionReasonSerializer;
 
     public DependencyResultSerializer(ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory) {
-        this.componentSelectionReasonSerializer = new ComponentSelectionReasonSerializer(componentSelectionDescriptorFactory);
+        this(new ComponentSelectionReasonSerializer(componentSelectionDescriptorFactory));
     }
 
-    public ResolvedGraphDependency read(Decoder decoder, Map<Long, ComponentSelector> selectors, Map<ComponentSelector, ModuleVersionResolveException> failures) throws IOException {
+    DependencyResultSerializer(Serializer<ComponentSelectionReason> componentSelectionReasonSerializer) {
+        this.componentSelectionReasonSerializer = componentSelectionReasonSerializer;
+    }
+
+    public ResolvedGraphDependency read(Decoder decoder, Long2ObjectMap<ComponentSelector> selectors, Map<ComponentSelector, ModuleVersionResolveException> failures) throws IOException {
         long selectorId = decoder.readSmallLong();
         ComponentSelector requested = selectors.get(selectorId);
         boolean constraint = decoder.readBoolean();
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.artifacts.result.ComponentSelectionDescriptor;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A serializer for {@link ComponentSelectionReason} that writes each distinct reason only once
+ * and refers to it by index afterwards. Most components of a graph share a handful of reasons,
+ * so this keeps the stream small and lets all components read back share the same instances.
+ *
+ * This serializer is not thread-safe, and values must be read in the same order they were written.
+ */
+@NotThreadSafe
+class IndexingComponentSelectionReasonSerializer implements Serializer<ComponentSelectionReason> {
+    // Keyed by the descriptions rather than by the reason itself, as reasons are mutable
+    private final Map<List<ComponentSelectionDescriptor>, Integer> writeIndex = new HashMap<>();
+    private final List<ComponentSelectionReason> readIndex = Lists.newArrayList();
+    private final ComponentSelectionReasonSerializer delegate;
+
+    IndexingComponentSelectionReasonSerializer(ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory) {
+        this.delegate = new ComponentSelectionReasonSerializer(componentSelectionDescriptorFactory);
+    }
+
+    /**
+     * The same data may be read multiple times, in which case the internal state of the reader must be reset.
+     */
+    void reset() {
+        writeIndex.clear();
+        readIndex.clear();
+    }
+
+    @Override
+    public ComponentSelectionReason read(Decoder decoder) throws IOException {
+        int idx = decoder.readSmallInt();
+        if (idx == readIndex.size()) {
+            // new entry
+            ComponentSelectionReason reason = delegate.read(decoder);
+            readIndex.add(reason);
+            return reason;
+        }
+        return readIndex.get(idx);
+    }
+
+    @Override
+    public void write(Encoder encoder, ComponentSelectionReason value) throws IOException {
+        List<ComponentSelectionDescriptor> descriptions = value.getDescriptions();
+        Integer idx = writeIndex.get(descriptions);
+        if (idx == null) {
+            // new value
+            encoder.writeSmallInt(writeIndex.size());
+            writeIndex.put(descriptions, writeIndex.size());
+            delegate.write(encoder, value);
+        } else {
+            // known value, only write index
+            encoder.writeSmallInt(idx);
+        }
+    }
+}
@@ -17,6 +17,10 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
 
 import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import org.gradle.api.artifacts.UnresolvedDependency;
 import org.gradle.api.artifacts.component.ComponentSelector;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
@@ -44,7 +48,6 @@
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,7 +67,8 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
     private final Store<ResolvedComponentResult> cache;
     private final ComponentSelectorSerializer componentSelectorSerializer;
     private final DependencyResultSerializer dependencyResultSerializer;
-    private final Set<Long> visitedComponents = new HashSet<>();
+    private final IndexingComponentSelectionReasonSerializer reasonSerializer;
+    private final LongSet visitedComponents = new LongOpenHashSet();
     private final AttributeDesugaring desugaring;
 
     private ImmutableAttributes rootAttributes;
@@ -80,8 +84,10 @@ public StreamingResolutionResultBuilder(
         ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
         boolean returnAllVariants
     ) {
-        this.dependencyResultSerializer = new DependencyResultSerializer(componentSelectionDescriptorFactory);
-        this.componentResultSerializer = new ComponentResultSerializer(componentDetailsSerializer, selectedVariantSerializer, componentSelectionDescriptorFactory, returnAllVariants);
+        // Components and dependencies share a single index of selection reasons, so each distinct reason is written and read back once
+        this.reasonSerializer = new IndexingComponentSelectionReasonSerializer(componentSelectionDescriptorFactory);
+        this.dependencyResultSerializer = new DependencyResultSerializer(reasonSerializer);
+        this.componentResultSerializer = new ComponentResultSerializer(componentDetailsSerializer, selectedVariantSerializer, reasonSerializer, returnAllVariants);
         this.store = store;
         this.cache = cache;
         this.componentSelectorSerializer = new ComponentSelectorSerializer(attributeContainerSerializer);
@@ -90,7 +96,7 @@ public StreamingResolutionResultBuilder(
 
     public MinimalResolutionResult complete(Set<UnresolvedDependency> dependencyLockingFailures) {
         BinaryStore.BinaryData data = store.done();
-        RootFactory rootSource = new RootFactory(data, failures, cache, componentSelectorSerializer, dependencyResultSerializer, componentResultSerializer, dependencyLockingFailures);
+        RootFactory rootSource = new RootFactory(data, failures, cache, componentSelectorSerializer, reasonSerializer, dependencyResultSerializer, componentResultSerializer, dependencyLockingFailures);
         return new DefaultMinimalResolutionResult(rootSource::create, rootAttributes);
     }
 
@@ -111,7 +117,7 @@ public void finish(final RootGraphNode root) {
     @Override
     public void visitNode(DependencyGraphNode node) {
         final DependencyGraphComponent component = node.getOwner();
-        if (visitedComponents.add(component.getResultId())) {
+        if (visitedComponents.add(component.getResultId().longValue())) {
             store.write(encoder -> {
                 encoder.writeByte(COMPONENT);
                 componentResultSerializer.write(encoder, component);
@@ -130,7 +136,7 @@ public void visitSelector(final DependencyGraphSelector selector) {
 
     @Override
     public void visitEdges(DependencyGraphNode node) {
-        final Long fromComponent = node.getOwner().getResultId();
+        final long fromComponent = node.getOwner().getResultId();
         final Collection<? extends DependencyGraphEdge> dependencies = mayHaveVirtualPlatforms
             ? node.getOutgoingEdges().stream()
             .filter(dep -> !dep.isTargetVirtualPlatform())
@@ -163,15 +169,17 @@ private static class RootFactory implements Factory<ResolvedComponentResult> {
         private final Store<ResolvedComponentResult> cache;
         private final Object lock = new Object();
         private final ComponentSelectorSerializer componentSelectorSerializer;
+        private final IndexingComponentSelectionReasonSerializer reasonSerializer;
         private final DependencyResultSerializer dependencyResultSerializer;
         private final Set<UnresolvedDependency> dependencyLockingFailures;
 
-        RootFactory(BinaryStore.BinaryData data, Map<ComponentSelector, ModuleVersionResolveException> failures, Store<ResolvedComponentResult> cache, ComponentSelectorSerializer componentSelectorSerializer, DependencyResultSerializer dependencyResultSerializer, ComponentResultSerializer componentResultSerializer, Set<UnresolvedDependency> dependencyLockingFailures) {
+        RootFactory(BinaryStore.BinaryData data, Map<ComponentSelector, ModuleVersionResolveException> failures, Store<ResolvedComponentResult> cache, ComponentSelectorSerializer componentSelectorSerializer, IndexingComponentSelectionReasonSerializer reasonSerializer, DependencyResultSerializer dependencyResultSerializer, ComponentResultSerializer componentResultSerializer, Set<UnresolvedDependency> dependencyLockingFailures) {
             this.data = data;
             this.failures = failures;
             this.cache = cache;
             this.componentResultSerializer = componentResultSerializer;
             this.componentSelectorSerializer = componentSelectorSerializer;
+            this.reasonSerializer = reasonSerializer;
             this.dependencyResultSerializer = dependencyResultSerializer;
             this.dependencyLockingFailures = dependencyLockingFailures;
         }
@@ -195,19 +203,20 @@ public ResolvedComponentResult create() {
 
         private ResolvedComponentResult deserialize(Decoder decoder) {
             componentSelectorSerializer.reset();
+            reasonSerializer.reset();
             int valuesRead = 0;
             byte type = -1;
             Timer clock = Time.startTimer();
             try {
                 DefaultResolutionResultBuilder builder = new DefaultResolutionResultBuilder();
-                Map<Long, ComponentSelector> selectors = new HashMap<>();
+                Long2ObjectMap<ComponentSelector> selectors = new Long2ObjectOpenHashMap<>();
                 while (true) {
                     type = decoder.readByte();
                     valuesRead++;
                     switch (type) {
                         case ROOT:
                             // Last entry, complete the result
-                            Long rootId = decoder.readSmallLong();
+                            long rootId = decoder.readSmallLong();
                             builder.addDependencyLockingFailures(rootId, dependencyLockingFailures);
                             ResolvedComponentResult root = builder.getRoot(rootId);
                             LOG.debug("Loaded resolution results ({}) from {}", clock.getElapsed(), data);
@@ -216,12 +225,12 @@ private ResolvedComponentResult deserialize(Decoder decoder) {
                             componentResultSerializer.readInto(decoder, builder);
                             break;
                         case SELECTOR:
-                            Long id = decoder.readSmallLong();
+                            long id = decoder.readSmallLong();
                             ComponentSelector selector = componentSelectorSerializer.read(decoder);
                             selectors.put(id, selector);
                             break;
                         case DEPENDENCY:
-                            Long fromId = decoder.readSmallLong();
+                            long fromId = decoder.readSmallLong();
                             int size = decoder.readSmallInt();
                             if (size > 0) {
                                 List<ResolvedGraphDependency> deps = Lists.newArrayListWithExpectedSize(size);
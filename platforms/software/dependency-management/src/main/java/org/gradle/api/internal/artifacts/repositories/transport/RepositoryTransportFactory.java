@@ -27,6 +27,9 @@
 import org.gradle.authentication.Authentication;
 import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.internal.authentication.AuthenticationInternal;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalOption;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.hash.ChecksumService;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.resource.ExternalResourceName;
@@ -49,6 +52,12 @@
 
 @ServiceScope(Scopes.Build.class)
 public class RepositoryTransportFactory {
+    /**
+     * Limits the number of concurrent requests to a single repository, for servers or proxies that throttle clients.
+     * Requests over the limit wait for a pooled connection to become available.
+     */
+    public static final InternalOption<Integer> MAX_CONNECTIONS_PER_REPOSITORY = new IntegerInternalOption("org.gradle.internal.http.maxConnectionsPerRepository", 0);
+
     private final List<ResourceConnectorFactory> registeredProtocols = Lists.newArrayList();
 
     private final TemporaryFileProvider temporaryFileProvider;
@@ -60,6 +69,7 @@ public class RepositoryTransportFactory {
     private final ProducerGuard<ExternalResourceName> producerGuard;
     private final FileResourceRepository fileRepository;
     private final ChecksumService checksumService;
+    private final int maxConnectionsPerRepository;
 
     public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceConnectorFactory,
                                       TemporaryFileProvider temporaryFileProvider,
@@ -70,7 +80,8 @@ public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceC
                                       StartParameterResolutionOverride startParameterResolutionOverride,
                                       ProducerGuard<ExternalResourceName> producerGuard,
                                       FileResourceRepository fileRepository,
-                                      ChecksumService checksumService) {
+                                      ChecksumService checksumService,
+                                      InternalOptions internalOptions) {
         this.temporaryFileProvider = temporaryFileProvider;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
         this.timeProvider = timeProvider;
@@ -80,6 +91,7 @@ public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceC
         this.producerGuard = producerGuard;
         this.fileRepository = fileRepository;
         this.checksumService = checksumService;
+        this.maxConnectionsPerRepository = internalOptions.getOption(MAX_CONNECTIONS_PER_REPOSITORY).get();
 
         registeredProtocols.addAll(resourceConnectorFactory);
     }
@@ -115,7 +127,7 @@ public RepositoryTransport createTransport(Set<String> schemes, String name, Col
         if (schemes.equals(Collections.singleton("file"))) {
             return createFileTransport(name);
         }
-        ResourceConnectorSpecification connectionDetails = new DefaultResourceConnectorSpecification(authentications, redirectVerifier);
+        ResourceConnectorSpecification connectionDetails = new DefaultResourceConnectorSpecification(authentications, redirectVerifier, maxConnectionsPerRepository);
 
         ExternalResourceConnector resourceConnector = connectorFactory.createResourceConnector(connectionDetails);
         resourceConnector = startParameterResolutionOverride.overrideExternalResourceConnector(resourceConnector);
@@ -185,10 +197,12 @@ private ResourceConnectorFactory findConnectorFactory(Set<String> schemes) {
     private static class DefaultResourceConnectorSpecification implements ResourceConnectorSpecification {
         private final Collection<Authentication> authentications;
         private final HttpRedirectVerifier redirectVerifier;
+        private final int maxConnections;
 
-        private DefaultResourceConnectorSpecification(Collection<Authentication> authentications, HttpRedirectVerifier redirectVerifier) {
+        private DefaultResourceConnectorSpecification(Collection<Authentication> authentications, HttpRedirectVerifier redirectVerifier, int maxConnections) {
             this.authentications = authentications;
             this.redirectVerifier = redirectVerifier;
+            this.maxConnections = maxConnections;
         }
 
         @Override
@@ -218,5 +232,10 @@ public Collection<Authentication> getAuthentications() {
         public HttpRedirectVerifier getRedirectVerifier() {
             return redirectVerifier;
         }
+
+        @Override
+        public int getMaxConnections() {
+            return maxConnections;
+        }
     }
 }
@@ -41,6 +41,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -50,7 +51,7 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal {
     private final Map<String, Attribute<?>> attributesByName = new HashMap<>();
 
     private final IsolatableFactory isolatableFactory;
-    private final HashMap<AttributesSchemaInternal, AttributeMatcher> matcherCache = new HashMap<>();
+    private final Map<AttributesSchemaInternal, AttributeMatcher> matcherCache = new ConcurrentHashMap<>();
     private final List<AttributeDescriber> consumerAttributeDescribers = new ArrayList<>();
     private final Set<Attribute<?>> precedence = new LinkedHashSet<>();
 
@@ -172,7 +173,7 @@ private static class DefaultAttributeSelectionSchema implements AttributeSelecti
         public DefaultAttributeSelectionSchema(AttributesSchemaInternal consumerSchema, AttributesSchemaInternal producerSchema) {
             this.consumerSchema = consumerSchema;
             this.producerSchema = producerSchema;
-            this.extraAttributesCache = new HashMap<>();
+            this.extraAttributesCache = new ConcurrentHashMap<>();
         }
 
         @Override
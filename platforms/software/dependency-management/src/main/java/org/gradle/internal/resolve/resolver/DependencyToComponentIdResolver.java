@@ -35,4 +35,17 @@ public interface DependencyToComponentIdResolver {
      * <p>At some point in the future, this should resolve to a set of candidates rather than a single instance.
      */
     void resolve(DependencyMetadata dependency, VersionSelector acceptor, @Nullable VersionSelector rejector, BuildableComponentIdResolveResult result);
+
+    /**
+     * Lists the available versions of the module targeted by the given dependency, which uses a dynamic version selector, ahead of its resolution.
+     * This method may be called concurrently for different dependencies. Resolving the dependency afterwards must produce the same result as without listing ahead.
+     */
+    default void prefetchVersionListing(DependencyMetadata dependency) {
+    }
+
+    /**
+     * Discards the listings made by {@link #prefetchVersionListing(DependencyMetadata)} which were not used by a resolution.
+     */
+    default void discardPrefetchedVersionListings() {
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+
+class ParsedPomCacheTest extends AbstractPomReaderTest {
+    final ImmutableModuleIdentifierFactory moduleIdentifierFactory = Mock()
+    def cache = new ParsedPomCache()
+
+    def "hands out a separate copy of the cached document to each caller"() {
+        given:
+        pomFile << pom("parent", "1.0")
+
+        when:
+        def first = cache.getDocument(locallyAvailableExternalResource)
+        first.getElementsByTagName("packaging").item(0).textContent = "jar"
+        def second = cache.getDocument(locallyAvailableExternalResource)
+
+        then:
+        !second.is(first)
+        new PomReader(first, locallyAvailableExternalResource, moduleIdentifierFactory, [:]).packaging == "jar"
+        new PomReader(second, locallyAvailableExternalResource, moduleIdentifierFactory, [:]).packaging == "pom"
+    }
+
+    def "parses the file again when it has changed"() {
+        given:
+        pomFile << pom("parent", "1.0")
+
+        when:
+        def first = new PomReader(cache.getDocument(locallyAvailableExternalResource), locallyAvailableExternalResource, moduleIdentifierFactory, [:])
+        pomFile.text = pom("parent", "1.0.1")
+        def second = new PomReader(cache.getDocument(locallyAvailableExternalResource), locallyAvailableExternalResource, moduleIdentifierFactory, [:])
+
+        then:
+        first.version == "1.0"
+        second.version == "1.0.1"
+    }
+
+    private static String pom(String artifactId, String version) {
+        """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>${artifactId}</artifactId>
+    <version>${version}</version>
+    <packaging>pom</packaging>
+</project>
+"""
+    }
+}
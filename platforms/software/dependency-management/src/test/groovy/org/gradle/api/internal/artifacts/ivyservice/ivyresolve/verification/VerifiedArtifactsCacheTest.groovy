@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.cache.internal.DefaultUnscopedCacheBuilderFactory
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory
+import org.gradle.cache.internal.scopes.DefaultBuildScopedCacheBuilderFactory
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.hash.ChecksumService
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class VerifiedArtifactsCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def cacheBuilderFactory = new DefaultBuildScopedCacheBuilderFactory(temporaryFolder.createDir("caches"), new DefaultUnscopedCacheBuilderFactory(null, new TestInMemoryCacheFactory()))
+    def verificationsFile = temporaryFolder.file("verification-metadata.xml") << "<verification-metadata/>"
+    def keyringsFile = temporaryFolder.file("verification-keyring.keys")
+    def artifact = new DefaultModuleComponentArtifactIdentifier(DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "foo"), "1.0"), "foo", "jar", "jar")
+    def mainFile = temporaryFolder.file("foo-1.0.jar") << "content"
+    def signatureFile = temporaryFolder.file("foo-1.0.jar.asc") << "signature"
+    def keyServers = [URI.create("https://keys.openpgp.org")]
+    def useKeyServers = true
+
+    def "remembers verified artifacts"() {
+        def cache = createCache()
+        def key = cache.verificationKey(ArtifactVerificationOperation.ArtifactKind.REGULAR, artifact, mainFile, signatureFile)
+
+        expect:
+        key != null
+        !cache.isVerified(mainFile, key)
+
+        when:
+        cache.markVerified(mainFile, key)
+
+        then:
+        cache.isVerified(mainFile, key)
+
+        cleanup:
+        cache.stop()
+    }
+
+    def "verification key changes when the artifact, its signature, the verification metadata, the keyring or the key servers change"() {
+        def cache = createCache()
+        def key = cache.verificationKey(ArtifactVerificationOperation.ArtifactKind.REGULAR, artifact, mainFile, signatureFile)
+        cache.stop()
+
+        when:
+        change()
+        cache = createCache()
+
+        then:
+        cache.verificationKey(ArtifactVerificationOperation.ArtifactKind.REGULAR, artifact, mainFile, signatureFile) != key
+
+        cleanup:
+        cache.stop()
+
+        where:
+        change << [
+            { mainFile << "more" },
+            { signatureFile << "more" },
+            { verificationsFile << "more" },
+            { keyringsFile << "keys" },
+            { keyServers = [URI.create("https://other.keyserver.org")] },
+            { useKeyServers = false }
+        ]
+    }
+
+    def "verification key uses SHA-256 rather than SHA-1 of the artifact"() {
+        def checksumService = Mock(ChecksumService) {
+            _ * sha256(_) >> TestHashCodes.hashCodeFrom(0)
+        }
+        def cache = new VerifiedArtifactsCache(cacheBuilderFactory, Stub(InMemoryCacheDecoratorFactory), checksumService, verificationsFile, keyringsFile, keyServers, useKeyServers, false)
+
+        when:
+        cache.verificationKey(ArtifactVerificationOperation.ArtifactKind.REGULAR, artifact, mainFile, signatureFile)
+
+        then:
+        1 * checksumService.sha256(mainFile) >> TestHashCodes.hashCodeFrom(1)
+        1 * checksumService.sha256(signatureFile) >> TestHashCodes.hashCodeFrom(2)
+        0 * checksumService.sha1(_)
+
+        cleanup:
+        cache.stop()
+    }
+
+    def "verifies every artifact again when keys are refreshed"() {
+        def cache = createCache()
+        def key = cache.verificationKey(ArtifactVerificationOperation.ArtifactKind.REGULAR, artifact, mainFile, signatureFile)
+        cache.markVerified(mainFile, key)
+        cache.stop()
+
+        when:
+        cache = createCache(true)
+
+        then:
+        !cache.isVerified(mainFile, key)
+
+        cleanup:
+        cache.stop()
+    }
+
+    def "does not compute a verification key for missing artifacts"() {
+        def cache = createCache()
+
+        expect:
+        cache.verificationKey(ArtifactVerificationOperation.ArtifactKind.REGULAR, artifact, temporaryFolder.file("missing.jar"), null) == null
+
+        cleanup:
+        cache.stop()
+    }
+
+    private VerifiedArtifactsCache createCache(boolean refreshKeys = false) {
+        new VerifiedArtifactsCache(cacheBuilderFactory, Stub(InMemoryCacheDecoratorFactory), TestUtil.checksumService, verificationsFile, keyringsFile, keyServers, useKeyServers, refreshKeys)
+    }
+}
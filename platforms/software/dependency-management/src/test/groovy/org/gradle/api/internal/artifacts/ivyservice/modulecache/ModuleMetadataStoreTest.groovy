@@ -69,4 +69,37 @@ class ModuleMetadataStoreTest extends Specification {
         };
         1 * serializer.write(_, descriptor, _)
     }
+
+    def "reads back repeated strings as interned instances"() {
+        setup:
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def key = new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier)
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier, []).asImmutable()
+        def readBack = []
+
+        when:
+        store.putModuleDescriptor(key, descriptor)
+        store.getModuleDescriptor(key)
+
+        then:
+        1 * pathKeyFileStore.add(_, _) >> { path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        }
+        1 * serializer.write(_, descriptor, _) >> { encoder, metadata, deduplication ->
+            encoder.writeString(new String("org.test"))
+            encoder.writeString(new String("org.test"))
+            encoder.writeNullableString(null)
+        }
+        1 * pathKeyFileStore.get(_) >> fileStoreEntry
+        _ * fileStoreEntry.getFile() >> descriptorFile
+        1 * serializer.read(_, moduleIdentifierFactory, _) >> { decoder, factory, deduplication ->
+            readBack << decoder.readString() << decoder.readString() << decoder.readNullableString()
+            null
+        }
+
+        and:
+        readBack[0] == "org.test"
+        readBack[1].is(readBack[0])
+        readBack[2] == null
+    }
 }
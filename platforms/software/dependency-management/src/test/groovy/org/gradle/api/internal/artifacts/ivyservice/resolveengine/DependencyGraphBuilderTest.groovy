@@ -73,6 +73,7 @@ import org.gradle.internal.component.model.IvyArtifactName
 import org.gradle.internal.component.model.LocalComponentDependencyMetadata
 import org.gradle.internal.component.model.LocalOriginDependencyMetadata
 import org.gradle.internal.model.CalculatedValue
+import org.gradle.internal.operations.BuildOperationConstraint
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.BuildOperationQueue
 import org.gradle.internal.resolve.ModuleVersionNotFoundException
@@ -165,6 +166,41 @@ class DependencyGraphBuilderTest extends Specification {
         result.components == ids(root, a, b, c)
     }
 
+    def "selects the variants of many dependencies in batches"() {
+        given:
+        def modules = (1..40).collect { revision("m$it") }
+        modules.each { traverses root, it }
+        def queue = Mock(BuildOperationQueue) {
+            add(_) >> { args ->
+                args[0].run()
+            }
+        }
+        def selections = []
+        def selectionQueue = Mock(BuildOperationQueue) {
+            add(_) >> { args ->
+                selections << args[0].description().build().displayName
+                args[0].run()
+            }
+        }
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * buildOperationProcessor.runAll(_, BuildOperationConstraint.UNCONSTRAINED) >> { args ->
+            args[0].execute(queue)
+        }
+        1 * buildOperationProcessor.runAll(_) >> { args ->
+            args[0].execute(selectionQueue)
+        }
+        selections.size() == 3
+        selections.collect { (it =~ /^Select variants for (\d+) dependencies of /)[0][1] as int } == [16, 16, 8]
+
+        and:
+        result.components == ids(root, *modules)
+    }
+
     def "honors component replacements"() {
         given:
         def a = revision('a') // a->c
@@ -220,6 +256,98 @@ class DependencyGraphBuilderTest extends Specification {
         result.components == ids(root, a, b, c, d)
     }
 
+    def "lists versions of modules targeted by dynamic selectors ahead of selecting them"() {
+        given:
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a, revision: 'latest.release'
+        traverses root, b, revision: '1.+'
+        traverses root, c
+        def queue = Mock(BuildOperationQueue) {
+            add(_) >> { args ->
+                args[0].run()
+            }
+        }
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        // Lists the versions, then downloads the metadata
+        2 * buildOperationProcessor.runAll(_, BuildOperationConstraint.UNCONSTRAINED) >> { args ->
+            args[0].execute(queue)
+        }
+        1 * idResolver.prefetchVersionListing({ it.selector.module == 'a' })
+        1 * idResolver.prefetchVersionListing({ it.selector.module == 'b' })
+        0 * idResolver.prefetchVersionListing(_)
+        1 * idResolver.discardPrefetchedVersionListings()
+
+        and:
+        result.components == ids(root, a, b, c)
+    }
+
+    def "does not list versions of a module when the version already selected satisfies the dynamic selector"() {
+        given:
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def x = revision("x")
+        traverses root, a
+        traverses root, x
+        def satisfied = dependsOn(x, a.moduleVersionId, revision: '1.+')
+        _ * idResolver.resolve(satisfied, _, _, _) >> { DependencyMetadata dep, VersionSelector acceptor, VersionSelector rejector, BuildableComponentIdResolveResult result ->
+            result.resolved(a.id, a.moduleVersionId)
+        }
+        traverses x, b, revision: '1.+'
+        traverses x, c, revision: 'latest.release'
+        def queue = Mock(BuildOperationQueue) {
+            add(_) >> { args ->
+                args[0].run()
+            }
+        }
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        _ * buildOperationProcessor.runAll(_, BuildOperationConstraint.UNCONSTRAINED) >> { args ->
+            args[0].execute(queue)
+        }
+        1 * idResolver.prefetchVersionListing({ it.selector.module == 'b' })
+        1 * idResolver.prefetchVersionListing({ it.selector.module == 'c' })
+        0 * idResolver.prefetchVersionListing(_)
+
+        and:
+        result.components == ids(root, a, x, b, c)
+    }
+
+    def "discards the prefetched version listings when the traversal fails"() {
+        given:
+        def a = revision("a")
+        def b = revision("b")
+        dependsOn root, a.moduleVersionId, revision: 'latest.release'
+        dependsOn root, b.moduleVersionId, revision: '1.+'
+        idResolver.prefetchVersionListing(_) >> { throw new IllegalStateException("broken") }
+        def queue = Mock(BuildOperationQueue) {
+            add(_) >> { args ->
+                args[0].run()
+            }
+        }
+
+        when:
+        resolve()
+
+        then:
+        1 * buildOperationProcessor.runAll(_, BuildOperationConstraint.UNCONSTRAINED) >> { args ->
+            args[0].execute(queue)
+        }
+        thrown(IllegalStateException)
+        1 * idResolver.discardPrefetchedVersionListings()
+    }
+
     def "does not include evicted module or dependencies when selected module already traversed before conflict detected"() {
         given:
         def selected = revision('a', '1.2')
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
 import org.gradle.api.artifacts.component.ModuleComponentSelector
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
 import org.gradle.api.internal.artifacts.DependencyManagementTestUtil
@@ -53,7 +54,7 @@ class DependencyResultSerializerTest extends Specification {
         def encoder = new OutputStreamBackedEncoder(bytes)
         serializer.write(encoder, successful)
         encoder.flush()
-        def out = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())), [4L: requested], [:])
+        def out = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())), new Long2ObjectOpenHashMap([4L: requested]), [:])
 
         then:
         out.requested == requested
@@ -85,7 +86,7 @@ class DependencyResultSerializerTest extends Specification {
         encoder.flush()
         Map<ModuleComponentSelector, ModuleVersionResolveException> map = new HashMap<>()
         map.put(requested, failure)
-        def out = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())), [4L: requested], map)
+        def out = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())), new Long2ObjectOpenHashMap([4L: requested]), map)
 
         then:
         out.requested == requested
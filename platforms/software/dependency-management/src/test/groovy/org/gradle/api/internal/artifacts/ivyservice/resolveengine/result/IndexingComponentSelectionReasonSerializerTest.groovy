@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
+
+import org.gradle.api.internal.artifacts.DependencyManagementTestUtil
+import org.gradle.internal.Describables
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import spock.lang.Specification
+
+class IndexingComponentSelectionReasonSerializerTest extends Specification {
+    def serializer = new IndexingComponentSelectionReasonSerializer(DependencyManagementTestUtil.componentSelectionDescriptorFactory())
+
+    def "writes each distinct reason once and shares instances on read"() {
+        def requested = ComponentSelectionReasons.requested()
+        def conflict = ComponentSelectionReasons.of(ComponentSelectionReasons.CONFLICT_RESOLUTION.withDescription(Describables.of("between 1.0 and 2.0")))
+
+        when:
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new OutputStreamBackedEncoder(bytes)
+        serializer.write(encoder, requested)
+        serializer.write(encoder, conflict)
+        serializer.write(encoder, ComponentSelectionReasons.requested())
+        serializer.write(encoder, conflict)
+        encoder.flush()
+
+        def decoder = new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray()))
+        def first = serializer.read(decoder)
+        def second = serializer.read(decoder)
+        def third = serializer.read(decoder)
+        def fourth = serializer.read(decoder)
+
+        then:
+        first == requested
+        second == conflict
+        third.is(first)
+        fourth.is(second)
+    }
+
+    def "can read the same data again after reset"() {
+        def reason = ComponentSelectionReasons.of(ComponentSelectionReasons.FORCED)
+
+        when:
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new OutputStreamBackedEncoder(bytes)
+        serializer.write(encoder, reason)
+        serializer.write(encoder, reason)
+        encoder.flush()
+
+        def firstRead = readAll(bytes.toByteArray(), 2)
+        serializer.reset()
+        def secondRead = readAll(bytes.toByteArray(), 2)
+
+        then:
+        firstRead == [reason, reason]
+        secondRead == [reason, reason]
+    }
+
+    private List readAll(byte[] bytes, int count) {
+        def decoder = new InputStreamBackedDecoder(new ByteArrayInputStream(bytes))
+        return (1..count).collect { serializer.read(decoder) }
+    }
+}
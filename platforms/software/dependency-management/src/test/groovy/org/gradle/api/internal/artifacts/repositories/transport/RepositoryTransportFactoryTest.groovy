@@ -24,6 +24,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterRes
 import org.gradle.authentication.Authentication
 import org.gradle.cache.internal.ProducerGuard
 import org.gradle.internal.authentication.AbstractAuthentication
+import org.gradle.internal.buildoption.DefaultInternalOptions
 import org.gradle.internal.resource.connector.ResourceConnectorFactory
 import org.gradle.internal.resource.local.FileResourceRepository
 import org.gradle.internal.resource.transport.ResourceConnectorRepositoryTransport
@@ -43,9 +44,13 @@ class RepositoryTransportFactoryTest extends Specification {
         connectorFactory1.getSupportedAuthentication() >> ([GoodCredentialsAuthentication, BadCredentialsAuthentication, AuthenticationWithoutCredentials] as Set)
         connectorFactory2.getSupportedProtocols() >> (["protocol2a", "protocol2b"] as Set)
         connectorFactory2.getSupportedAuthentication() >> ([] as Set)
+        repositoryTransportFactory = createFactory(new DefaultInternalOptions([:]))
+    }
+
+    RepositoryTransportFactory createFactory(DefaultInternalOptions internalOptions) {
         List<ResourceConnectorFactory> resourceConnectorFactories = Lists.newArrayList(connectorFactory1, connectorFactory2)
         StartParameterResolutionOverride override = new StartParameterResolutionOverride(new StartParameter(), new File("dummy"))
-        repositoryTransportFactory = new RepositoryTransportFactory(resourceConnectorFactories, null, null, null, null, null, override, producerGuard, Mock(FileResourceRepository), TestUtil.checksumService)
+        return new RepositoryTransportFactory(resourceConnectorFactories, null, null, null, null, null, override, producerGuard, Mock(FileResourceRepository), TestUtil.checksumService, internalOptions)
     }
 
     RepositoryTransport createTransport(Set<String> schemes, String name, Collection<Authentication> authentications) {
@@ -81,6 +86,25 @@ class RepositoryTransportFactoryTest extends Specification {
         transport.class == ResourceConnectorRepositoryTransport
     }
 
+    def "does not limit the connections of a repository by default"() {
+        when:
+        createTransport(['protocol1'] as Set, null, [])
+
+        then:
+        1 * connectorFactory1.createResourceConnector({ it.maxConnections == 0 })
+    }
+
+    def "limits the connections of a repository with an internal option"() {
+        given:
+        repositoryTransportFactory = createFactory(new DefaultInternalOptions([(RepositoryTransportFactory.MAX_CONNECTIONS_PER_REPOSITORY.systemPropertyName): "4"]))
+
+        when:
+        createTransport(['protocol1'] as Set, null, [])
+
+        then:
+        1 * connectorFactory1.createResourceConnector({ it.maxConnections == 4 })
+    }
+
     def "should create transport for known scheme, authentication and credentials"() {
         def authentication = new GoodCredentialsAuthentication('good')
         authentication.credentials = Mock(GoodCredentials)
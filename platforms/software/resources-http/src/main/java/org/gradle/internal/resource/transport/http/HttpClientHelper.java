@@ -103,6 +103,17 @@ public HttpClientResponse performGet(String source, boolean revalidate) {
         return processResponse(performRawGet(source, revalidate));
     }
 
+    /**
+     * Requests the content of the given resource starting at the given offset, provided that the resource still matches the given validator.
+     * The server responds with the full resource when the validator does not match, or when it does not support range requests.
+     */
+    public HttpClientResponse performRangeGet(String source, long offset, String validator) {
+        HttpGet request = new HttpGet(source);
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + offset + "-");
+        request.addHeader(HttpHeaders.IF_RANGE, validator);
+        return performRequest(request, false);
+    }
+
     public HttpClientResponse performRequest(HttpRequestBase request, boolean revalidate) {
         String method = request.getMethod();
         if (revalidate) {
@@ -58,12 +58,16 @@ public Set<Class<? extends Authentication>> getSupportedAuthentication() {
 
     @Override
     public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecification connectionDetails) {
-        HttpClientHelper http = httpClientHelperFactory.create(DefaultHttpSettings.builder()
+        DefaultHttpSettings.Builder settings = DefaultHttpSettings.builder()
             .withAuthenticationSettings(connectionDetails.getAuthentications())
             .withSslContextFactory(sslContextFactory)
-            .withRedirectVerifier(connectionDetails.getRedirectVerifier())
-            .build()
-        );
+            .withRedirectVerifier(connectionDetails.getRedirectVerifier());
+        int maxConnections = connectionDetails.getMaxConnections();
+        if (maxConnections > 0) {
+            // Each repository has its own connection pool, so its size caps the concurrent requests to the repository
+            settings.maxConnTotal(maxConnections).maxConnPerRoute(maxConnections);
+        }
+        HttpClientHelper http = httpClientHelperFactory.create(settings.build());
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
         HttpResourceLister lister = new HttpResourceLister(accessor);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
@@ -76,7 +76,7 @@ public ExternalResourceMetaData getMetaData(ExternalResourceName location, boole
     }
 
     private HttpResponseResource wrapResponse(URI uri, HttpClientResponse response) {
-        return new HttpResponseResource("GET", uri, response);
+        return new HttpResponseResource("GET", uri, response, http);
     }
 
 }
@@ -16,6 +16,7 @@
 package org.gradle.internal.resource.transport.http;
 
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.utils.DateUtils;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
@@ -24,6 +25,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -36,12 +38,22 @@ public class HttpResponseResource implements ExternalResourceReadResponse {
     private final URI source;
     private final HttpClientResponse response;
     private final ExternalResourceMetaData metaData;
+    @Nullable
+    private final HttpClientHelper http;
     private boolean wasOpened;
 
     public HttpResponseResource(String method, URI source, HttpClientResponse response) {
+        this(method, source, response, null);
+    }
+
+    /**
+     * When a client is provided, a download interrupted by a network failure is resumed with a range request, where the server supports it.
+     */
+    public HttpResponseResource(String method, URI source, HttpClientResponse response, @Nullable HttpClientHelper http) {
         this.method = method;
         this.source = source;
         this.response = response;
+        this.http = http;
 
         String etag = getEtag(response);
         this.metaData = new DefaultExternalResourceMetaData(source, getLastModified(), getContentLength(), getContentType(), etag, getSha1(response, etag), getFilename(), response.wasMissing());
@@ -139,7 +151,31 @@ public InputStream openStream() throws IOException {
         }
         LOGGER.debug("Attempting to download resource {}.", source);
         this.wasOpened = true;
-        return response.getContent();
+        InputStream content = response.getContent();
+        String validator = getRangeValidator();
+        if (validator != null) {
+            return new ResumingHttpContentInputStream(http, response, content, validator, metaData.getContentLength());
+        }
+        return content;
+    }
+
+    /**
+     * Returns the value to use for the If-Range header when resuming the download of this resource, or null when the download cannot be resumed.
+     */
+    @Nullable
+    private String getRangeValidator() {
+        if (http == null || !"GET".equals(method) || getStatusCode() != HttpStatus.SC_OK || metaData.getContentLength() <= 0) {
+            return null;
+        }
+        if (!"bytes".equalsIgnoreCase(response.getHeader(HttpHeaders.ACCEPT_RANGES))) {
+            return null;
+        }
+        // Weak entity tags cannot be used with If-Range
+        String etag = metaData.getEtag();
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.getHeader(HttpHeaders.LAST_MODIFIED);
     }
 
     @Override
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.gradle.internal.IoActions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The content of an HTTP response that continues from where it stopped when the connection fails part way through the download.
+ *
+ * The remainder of the content is requested with a range request, guarded by an If-Range validator so that the pieces are known
+ * to belong to the same version of the resource. When the server does not honor the request, the original failure is rethrown.
+ */
+class ResumingHttpContentInputStream extends InputStream {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumingHttpContentInputStream.class);
+    private static final int MAX_RESUME_ATTEMPTS = 3;
+
+    private final HttpClientHelper http;
+    private final String validator;
+    private final long contentLength;
+    private HttpClientResponse response;
+    private InputStream content;
+    private long position;
+    private int resumeAttempts;
+
+    ResumingHttpContentInputStream(HttpClientHelper http, HttpClientResponse response, InputStream content, String validator, long contentLength) {
+        this.http = http;
+        this.response = response;
+        this.content = content;
+        this.validator = validator;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            try {
+                int value = content.read();
+                if (value >= 0) {
+                    position++;
+                }
+                return value;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        while (true) {
+            try {
+                int count = content.read(buffer, offset, length);
+                if (count > 0) {
+                    position += count;
+                }
+                return count;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    private void resume(IOException failure) throws IOException {
+        if (position >= contentLength || resumeAttempts >= MAX_RESUME_ATTEMPTS) {
+            throw failure;
+        }
+        resumeAttempts++;
+        String source = response.getEffectiveUri().toString();
+        LOGGER.info("Download of {} failed after {} of {} bytes, resuming. Reason: {}", HttpClientHelper.stripUserCredentials(response.getEffectiveUri()), position, contentLength, failure.getMessage());
+        IoActions.closeQuietly(content);
+        response.close();
+
+        HttpClientResponse resumed;
+        try {
+            resumed = http.performRangeGet(source, position, validator);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+            throw failure;
+        }
+        if (resumed.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT || !startsAtPosition(resumed)) {
+            resumed.close();
+            throw failure;
+        }
+        response = resumed;
+        content = resumed.getContent();
+    }
+
+    private boolean startsAtPosition(HttpClientResponse resumed) {
+        String contentRange = resumed.getHeader(HttpHeaders.CONTENT_RANGE);
+        return contentRange != null && contentRange.startsWith("bytes " + position + "-");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            content.close();
+        } finally {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.HttpHeaders
+import org.apache.http.ssl.SSLContexts
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.internal.resource.ExternalResourceName
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+class HttpResourceAccessorResumeTest extends Specification {
+    @Rule HttpServer httpServer = new HttpServer()
+    def accessor = new HttpResourceAccessor(new HttpClientHelper(new DocumentationRegistry(), httpSettings))
+
+    def "resumes a download with a range request when the server drops the connection"() {
+        given:
+        expectGetDroppedAfter("abcd")
+        httpServer.expect("/thing.jar", ["GET"], new HttpServer.ActionSupport("return the remainder of the resource") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                assert request.getHeader(HttpHeaders.RANGE) == "bytes=4-"
+                assert request.getHeader(HttpHeaders.IF_RANGE) == '"v1"'
+                response.setStatus(206)
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes 4-9/10")
+                response.setContentLength(6)
+                response.outputStream.write("efghij".bytes)
+            }
+        })
+        httpServer.start()
+
+        when:
+        def resource = accessor.openResource(new ExternalResourceName(httpServer.uri.resolve("/thing.jar")), false)
+        def content = resource.openStream().withCloseable { it.text }
+
+        then:
+        content == "abcdefghij"
+    }
+
+    def "fails when the server answers the range request with the full resource"() {
+        given:
+        expectGetDroppedAfter("abcd")
+        httpServer.expect("/thing.jar", ["GET"], new HttpServer.ActionSupport("ignore the range request") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(200)
+                response.setContentLength(10)
+                response.outputStream.write("abcdefghij".bytes)
+            }
+        })
+        httpServer.start()
+
+        when:
+        def resource = accessor.openResource(new ExternalResourceName(httpServer.uri.resolve("/thing.jar")), false)
+        resource.openStream().withCloseable { it.text }
+
+        then:
+        thrown(IOException)
+    }
+
+    private void expectGetDroppedAfter(String partialContent) {
+        httpServer.expect("/thing.jar", ["GET"], new HttpServer.ActionSupport("drop the connection part way through the resource") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(200)
+                response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes")
+                response.setHeader(HttpHeaders.ETAG, '"v1"')
+                response.setContentLength(10)
+                response.outputStream.write(partialContent.bytes)
+                // Jetty closes the connection when a committed response is shorter than its content length
+                response.flushBuffer()
+            }
+        })
+    }
+
+    private HttpSettings getHttpSettings() {
+        Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getTimeoutSettings() >> { new JavaSystemPropertiesHttpTimeoutSettings() }
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> SSLContexts.createDefault()
+            }
+        }
+    }
+}
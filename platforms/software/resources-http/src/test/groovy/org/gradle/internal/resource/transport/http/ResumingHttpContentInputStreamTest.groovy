@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.Header
+import org.apache.http.HttpEntity
+import org.apache.http.StatusLine
+import org.apache.http.client.methods.CloseableHttpResponse
+import spock.lang.Specification
+
+class ResumingHttpContentInputStreamTest extends Specification {
+    def uri = new URI("http://somewhere/thing.jar")
+    def http = Mock(HttpClientHelper)
+
+    def "resumes the download where it stopped when the connection fails"() {
+        def original = response(200, [:], failingAfter("abcd"))
+        def stream = new ResumingHttpContentInputStream(http, original, original.content, '"etag"', 10)
+
+        when:
+        def content = new String(stream.bytes)
+
+        then:
+        1 * http.performRangeGet(uri.toString(), 4, '"etag"') >> response(206, ["Content-Range": "bytes 4-9/10"], new ByteArrayInputStream("efghij".bytes))
+        content == "abcdefghij"
+    }
+
+    def "rethrows the failure when the server sends the full resource instead of the remainder"() {
+        def original = response(200, [:], failingAfter("abcd"))
+        def stream = new ResumingHttpContentInputStream(http, original, original.content, '"etag"', 10)
+
+        when:
+        stream.bytes
+
+        then:
+        1 * http.performRangeGet(uri.toString(), 4, '"etag"') >> response(200, [:], new ByteArrayInputStream("abcdefghij".bytes))
+        def e = thrown(IOException)
+        e.message == "Connection reset"
+    }
+
+    def "gives up after repeated failures"() {
+        def original = response(200, [:], failingAfter("ab"))
+        def stream = new ResumingHttpContentInputStream(http, original, original.content, '"etag"', 10)
+
+        when:
+        stream.bytes
+
+        then:
+        3 * http.performRangeGet(uri.toString(), _, '"etag"') >> { args -> response(206, ["Content-Range": "bytes ${args[1]}-9/10".toString()], failingAfter("c")) }
+        thrown(IOException)
+    }
+
+    private HttpClientResponse response(int statusCode, Map<String, String> headers, InputStream content) {
+        def response = Stub(CloseableHttpResponse) {
+            getStatusLine() >> Stub(StatusLine) {
+                getStatusCode() >> statusCode
+            }
+            getFirstHeader(_) >> { String name ->
+                headers.containsKey(name) ? Stub(Header) { getValue() >> headers[name] } : null
+            }
+            getEntity() >> Stub(HttpEntity) {
+                getContent() >> content
+            }
+        }
+        return new HttpClientResponse("GET", uri, response)
+    }
+
+    private static InputStream failingAfter(String text) {
+        def bytes = new ByteArrayInputStream(text.bytes)
+        return new InputStream() {
+            @Override
+            int read() throws IOException {
+                int value = bytes.read()
+                if (value < 0) {
+                    throw new IOException("Connection reset")
+                }
+                return value
+            }
+        }
+    }
+}
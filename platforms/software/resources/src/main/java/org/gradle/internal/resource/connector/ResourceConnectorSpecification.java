@@ -35,4 +35,11 @@ default HttpRedirectVerifier getRedirectVerifier() {
         return uris -> {
         };
     }
+
+    /**
+     * The maximum number of concurrent connections to the repository, or 0 when the number of connections is not limited.
+     */
+    default int getMaxConnections() {
+        return 0;
+    }
 }
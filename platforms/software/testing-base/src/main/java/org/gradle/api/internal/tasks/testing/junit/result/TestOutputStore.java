@@ -35,11 +35,19 @@
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class TestOutputStore {
+    private static final int MESSAGE_BUFFER_SIZE = 8192;
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
@@ -77,10 +85,29 @@ private static class TestCaseRegion {
         Region stdErrRegion = new Region();
     }
 
+    /**
+     * The positions of the output events of a test class for one destination, in the order they were written.
+     * Output of test classes running in parallel is interleaved in the outputs file, so this lets a reader go
+     * straight to the events of a test class instead of decoding everything written in between.
+     */
+    private static class EventOffsets {
+        private long[] offsets = new long[16];
+        private int size;
+
+        void add(long offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+    }
+
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
 
         private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, EventOffsets> stdOutEvents = new HashMap<Long, EventOffsets>();
+        private final Map<Long, EventOffsets> stdErrEvents = new HashMap<Long, EventOffsets>();
 
         public Writer() {
             try {
@@ -138,6 +165,14 @@ private void mark(long classId, long testId, boolean isStdout) {
                 streamRegion.start = total;
             }
             streamRegion.stop = total;
+
+            Map<Long, EventOffsets> events = isStdout ? stdOutEvents : stdErrEvents;
+            EventOffsets classEvents = events.get(classId);
+            if (classEvents == null) {
+                classEvents = new EventOffsets();
+                events.put(classId, classEvents);
+            }
+            classEvents.add(total);
         }
 
         private void writeIndex() {
@@ -168,11 +203,28 @@ private void writeIndex() {
                         indexOutput.writeLong(region.stdErrRegion.start);
                         indexOutput.writeLong(region.stdErrRegion.stop);
                     }
+
+                    writeEventOffsets(indexOutput, stdOutEvents.get(classId));
+                    writeEventOffsets(indexOutput, stdErrEvents.get(classId));
                 }
             } finally {
                 indexOutput.close();
             }
         }
+
+        private void writeEventOffsets(Output indexOutput, @Nullable EventOffsets events) {
+            if (events == null) {
+                indexOutput.writeInt(0, true);
+                return;
+            }
+            indexOutput.writeInt(events.size, true);
+            long previous = 0;
+            for (int i = 0; i < events.size; i++) {
+                // Store the distance to the previous event, which is much smaller than the position itself
+                indexOutput.writeLong(events.offsets[i] - previous, true);
+                previous = events.offsets[i];
+            }
+        }
     }
 
     public Writer writer() {
@@ -180,20 +232,24 @@ public Writer writer() {
     }
 
     private static class Index {
+        private static final long[] NO_EVENTS = new long[0];
+
         final ImmutableMap<Long, Index> children;
         final Region stdOut;
         final Region stdErr;
+        final long[] stdOutEvents;
+        final long[] stdErrEvents;
 
         private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+            this(ImmutableMap.<Long, Index>of(), stdOut, stdErr, NO_EVENTS, NO_EVENTS);
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
+        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr, long[] stdOutEvents, long[] stdErrEvents) {
             this.children = children;
             this.stdOut = stdOut;
             this.stdErr = stdErr;
+            this.stdOutEvents = stdOutEvents;
+            this.stdErrEvents = stdErrEvents;
         }
     }
 
@@ -221,13 +277,24 @@ void add(long key, Index index) {
         }
 
         Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+            return build(Index.NO_EVENTS, Index.NO_EVENTS);
+        }
+
+        Index build(long[] stdOutEvents, long[] stdErrEvents) {
+            return new Index(children.build(), stdOut, stdErr, stdOutEvents, stdErrEvents);
         }
     }
 
     public class Reader implements Closeable {
         private final Index index;
         private final RandomAccessFile dataFile;
+        private final RandomAccessFileInputStream dataInput;
+        private final KryoBackedDecoder decoder;
+        private final CharsetDecoder messageDecoder = messageStorageCharset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer messageBytes = ByteBuffer.allocate(MESSAGE_BUFFER_SIZE);
+        private final CharBuffer messageChars = CharBuffer.allocate(MESSAGE_BUFFER_SIZE);
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -262,7 +329,9 @@ public Reader() {
                             classBuilder.add(testId, new Index(stdOut, stdErr));
                         }
 
-                        rootBuilder.add(classId, classBuilder.build());
+                        long[] stdOutEvents = readEventOffsets(input);
+                        long[] stdErrEvents = readEventOffsets(input);
+                        rootBuilder.add(classId, classBuilder.build(stdOutEvents, stdErrEvents));
                     }
                 } finally {
                     input.close();
@@ -275,6 +344,8 @@ public Reader() {
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
+                dataInput = new RandomAccessFileInputStream(dataFile);
+                decoder = new KryoBackedDecoder(dataInput);
             } else { // no outputs file
                 if (indexFile.exists()) {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
@@ -282,9 +353,25 @@ public Reader() {
 
                 index = null;
                 dataFile = null;
+                dataInput = null;
+                decoder = null;
             }
         }
 
+        private long[] readEventOffsets(Input input) {
+            int count = input.readInt(true);
+            if (count == 0) {
+                return Index.NO_EVENTS;
+            }
+            long[] offsets = new long[count];
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                previous += input.readLong(true);
+                offsets[i] = previous;
+            }
+            return offsets;
+        }
+
         @Override
         public void close() throws IOException {
             if (dataFile != null) {
@@ -342,54 +429,81 @@ private void doRead(long classId, long testId, boolean allClassOutput, TestOutpu
             boolean ignoreClassLevel = !allClassOutput && testId != 0;
             boolean ignoreTestLevel = !allClassOutput && testId == 0;
 
+            Index classIndex = index.children.get(classId);
+            long[] events = stdout ? classIndex.stdOutEvents : classIndex.stdErrEvents;
+            int first = testId == 0 ? 0 : firstEventAtOrAfter(events, region.start);
+
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
+                long nextEventPosition = -1;
+                long decoderStart = 0;
+                for (int i = first; i < events.length && events[i] <= region.stop; i++) {
+                    long eventPosition = events[i];
+                    if (eventPosition != nextEventPosition) {
+                        // Only seek when the event does not directly follow the previous one
+                        dataFile.seek(eventPosition);
+                        decoder.restart(dataInput);
+                        decoderStart = eventPosition;
+                    }
+
+                    decoder.readBoolean();
+                    decoder.readSmallLong();
                     long readTestId = decoder.readSmallLong();
                     int readLength = decoder.readSmallInt();
 
                     boolean isClassLevel = readTestId == 0;
+                    boolean ignored = (ignoreClassLevel && isClassLevel) || (ignoreTestLevel && !isClassLevel);
 
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
-
-                        writer.write(message);
+                    if (!ignored && (testId == 0 || testId == readTestId)) {
+                        writeMessage(decoder, readLength, writer);
                     } else {
                         decoder.skipBytes(readLength);
                     }
+                    nextEventPosition = decoderStart + decoder.getReadPosition();
                 }
             } catch (IOException e1) {
                 throw new UncheckedIOException(e1);
             }
         }
 
+        private int firstEventAtOrAfter(long[] events, long position) {
+            int index = Arrays.binarySearch(events, position);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * Decodes the message in chunks straight into the writer, so that large outputs are never held in memory as a whole.
+         */
+        private void writeMessage(KryoBackedDecoder decoder, int length, java.io.Writer writer) throws IOException {
+            messageDecoder.reset();
+            messageBytes.clear();
+            int remaining = length;
+            while (remaining > 0) {
+                int count = Math.min(remaining, messageBytes.remaining());
+                decoder.readBytes(messageBytes.array(), messageBytes.position(), count);
+                messageBytes.position(messageBytes.position() + count);
+                remaining -= count;
+
+                messageBytes.flip();
+                CoderResult result;
+                do {
+                    result = messageDecoder.decode(messageBytes, messageChars, remaining == 0);
+                    writeDecodedChars(writer);
+                } while (result.isOverflow());
+                // Keep any incomplete character for the next chunk
+                messageBytes.compact();
+            }
+            while (messageDecoder.flush(messageChars).isOverflow()) {
+                writeDecodedChars(writer);
+            }
+            writeDecodedChars(writer);
+        }
+
+        private void writeDecodedChars(java.io.Writer writer) throws IOException {
+            messageChars.flip();
+            writer.write(messageChars.array(), 0, messageChars.limit());
+            messageChars.clear();
+        }
+
         @Nullable
         private Index getIndex(long classId, long testId) {
             Index targetIndex = index.children.get(classId);
@@ -18,7 +18,12 @@
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.Actor;
@@ -27,28 +32,57 @@
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors.
+ *
+ * When the processors run each test class as soon as they receive it, test classes are pulled by idle processors: each processor
+ * is given one test class at a time, and the next one when it reports that the test class has completed. The test classes still
+ * waiting when the processors stop reporting progress, for example because they failed, are assigned as described below.
+ *
+ * Otherwise, each test class is assigned to the processor with the least expected work, using the durations of the test classes
+ * in the previous run. Test classes without a previous duration get the same estimate as in {@link RunPreviousFailedFirstTestClassProcessor},
+ * see {@link PreviousTestClassDurations}, so that without any previous durations the test classes are assigned round-robin.
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    private static final long NO_PROGRESS_TIMEOUT_SECONDS = 30;
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final PreviousTestClassDurations previousTestClassDurations;
+    private final boolean pullTestClasses;
+    private final Lock lock = new ReentrantLock();
+    private final Condition forkStateChanged = lock.newCondition();
+    private final List<Fork> forks = new ArrayList<Fork>();
+    private final LinkedList<TestClassRunInfo> waitingTestClasses = new LinkedList<TestClassRunInfo>();
     private TestResultProcessor resultProcessor;
-    private int pos;
-    private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
-    private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
-    private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
+    private volatile boolean progress;
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, PreviousTestClassDurations.NONE, false);
+    }
+
+    /**
+     * @param pullTestClasses whether the processors run each test class as soon as they receive it, and report the completion of each
+     * test class, so that idle processors can pull the remaining test classes.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, PreviousTestClassDurations previousTestClassDurations, boolean pullTestClasses) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousTestClassDurations = previousTestClassDurations;
+        this.pullTestClasses = pullTestClasses;
     }
 
     @Override
@@ -64,24 +98,94 @@ public void processTestClass(TestClassRunInfo testClass) {
             return;
         }
 
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+        lock.lock();
+        try {
+            if (forks.size() < maxProcessors) {
+                startFork().process(testClass);
+            } else if (!pullTestClasses) {
+                leastBusyFork().process(testClass);
+            } else {
+                Fork idleFork = idleFork();
+                if (idleFork != null) {
+                    idleFork.process(testClass);
+                } else {
+                    waitingTestClasses.add(testClass);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Fork startFork() {
+        TestClassProcessor rawProcessor = factory.create();
+        Fork fork = new Fork(rawProcessor);
+        Actor actor = actorFactory.createActor(pullTestClasses ? new FailureReportingTestClassProcessor(fork, rawProcessor) : rawProcessor);
+        fork.start(actor, pullTestClasses ? new CompletionReportingTestResultProcessor(fork, resultProcessor) : resultProcessor);
+        forks.add(fork);
+        return fork;
+    }
+
+    private Fork idleFork() {
+        for (Fork fork : forks) {
+            if (!fork.failed && fork.runningTestClasses.isEmpty()) {
+                return fork;
+            }
+        }
+        return null;
+    }
+
+    private Fork leastBusyFork() {
+        Fork leastBusy = null;
+        for (Fork fork : forks) {
+            if (leastBusy == null || (leastBusy.failed && !fork.failed) || (leastBusy.failed == fork.failed && fork.expectedWork < leastBusy.expectedWork)) {
+                leastBusy = fork;
+            }
+        }
+        return leastBusy;
+    }
+
+    private void testClassCompleted(Fork fork, String testClassName) {
+        // A processor runs its test classes in the order it received them, so the test classes before this one have completed as well
+        List<String> completedTestClasses = fork.runningTestClasses.subList(0, fork.runningTestClasses.indexOf(testClassName) + 1);
+        for (String completedTestClass : completedTestClasses) {
+            fork.expectedWork -= previousTestClassDurations.getExpectedDuration(completedTestClass);
+        }
+        completedTestClasses.clear();
+        if (fork.runningTestClasses.isEmpty() && !waitingTestClasses.isEmpty() && !stoppedNow) {
+            fork.process(waitingTestClasses.removeFirst());
+        }
+        forkStateChanged.signalAll();
+    }
+
+    private void forkFailed(Fork fork) {
+        lock.lock();
+        try {
+            fork.failed = true;
+            forkStateChanged.signalAll();
+        } finally {
+            lock.unlock();
         }
-        processor.processTestClass(testClass);
     }
 
     @Override
     public void stop() {
+        List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+        List<Actor> actors = new ArrayList<Actor>();
+        lock.lock();
+        try {
+            waitForWaitingTestClasses();
+            while (!waitingTestClasses.isEmpty() && !stoppedNow) {
+                leastBusyFork().process(waitingTestClasses.removeFirst());
+            }
+            for (Fork fork : forks) {
+                processors.add(fork.processor);
+                actors.add(fork.actor);
+            }
+        } finally {
+            lock.unlock();
+        }
+
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
@@ -89,11 +193,164 @@ public void stop() {
         }
     }
 
+    private void waitForWaitingTestClasses() {
+        progress = true;
+        while (progress && !waitingTestClasses.isEmpty() && !stoppedNow && workingForkExists()) {
+            progress = false;
+            try {
+                forkStateChanged.await(NO_PROGRESS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private boolean workingForkExists() {
+        for (Fork fork : forks) {
+            if (!fork.failed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void stopNow() {
-        stoppedNow = true;
+        List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
+        lock.lock();
+        try {
+            stoppedNow = true;
+            forkStateChanged.signalAll();
+            for (Fork fork : forks) {
+                rawProcessors.add(fork.rawProcessor);
+            }
+        } finally {
+            lock.unlock();
+        }
         for (TestClassProcessor processor : rawProcessors) {
             processor.stopNow();
         }
     }
+
+    private class Fork {
+        private final TestClassProcessor rawProcessor;
+        private Actor actor;
+        private TestClassProcessor processor;
+        private final List<String> runningTestClasses = new ArrayList<String>();
+        private final Map<Object, String> startedTestClasses = new HashMap<Object, String>();
+        private long expectedWork;
+        private boolean failed;
+
+        Fork(TestClassProcessor rawProcessor) {
+            this.rawProcessor = rawProcessor;
+        }
+
+        void start(Actor actor, TestResultProcessor resultProcessor) {
+            this.actor = actor;
+            processor = actor.getProxy(TestClassProcessor.class);
+            processor.startProcessing(resultProcessor);
+        }
+
+        void process(TestClassRunInfo testClass) {
+            if (pullTestClasses) {
+                runningTestClasses.add(testClass.getTestClassName());
+            }
+            expectedWork += previousTestClassDurations.getExpectedDuration(testClass.getTestClassName());
+            processor.processTestClass(testClass);
+        }
+    }
+
+    /**
+     * Notices when a processor fails, so that the test classes still waiting are not held back for it.
+     */
+    private class FailureReportingTestClassProcessor implements TestClassProcessor {
+        private final Fork fork;
+        private final TestClassProcessor delegate;
+
+        FailureReportingTestClassProcessor(Fork fork, TestClassProcessor delegate) {
+            this.fork = fork;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            delegate.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                delegate.processTestClass(testClass);
+            } catch (RuntimeException e) {
+                forkFailed(fork);
+                throw e;
+            }
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+
+        @Override
+        public void stopNow() {
+            delegate.stopNow();
+        }
+    }
+
+    /**
+     * Gives a processor its next test class when it reports that a test class has completed.
+     */
+    private class CompletionReportingTestResultProcessor implements TestResultProcessor {
+        private final Fork fork;
+        private final TestResultProcessor delegate;
+
+        CompletionReportingTestResultProcessor(Fork fork, TestResultProcessor delegate) {
+            this.fork = fork;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            progress = true;
+            if (test.isComposite() && test.getClassName() != null) {
+                lock.lock();
+                try {
+                    if (fork.runningTestClasses.contains(test.getClassName())) {
+                        fork.startedTestClasses.put(test.getId(), test.getClassName());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            delegate.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            progress = true;
+            delegate.completed(testId, event);
+            lock.lock();
+            try {
+                String testClassName = fork.startedTestClasses.remove(testId);
+                if (testClassName != null) {
+                    testClassCompleted(fork, testClassName);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            progress = true;
+            delegate.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, TestFailure result) {
+            progress = true;
+            delegate.failure(testId, result);
+        }
+    }
 }
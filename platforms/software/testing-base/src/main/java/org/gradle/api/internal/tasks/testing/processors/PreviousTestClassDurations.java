@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The durations of the test classes in the previous run, in milliseconds, and the duration that is expected for a test class
+ * without a previous duration. Such a test class, for example a new one, is expected to take as long as the longest test class
+ * of the previous run, so that it starts early rather than late. Every test class is expected to take at least a millisecond.
+ */
+public class PreviousTestClassDurations {
+    public static final PreviousTestClassDurations NONE = new PreviousTestClassDurations(Collections.<String, Long>emptyMap());
+
+    private final Map<String, Long> durations;
+    private final long unknownTestClassDuration;
+
+    public PreviousTestClassDurations(Map<String, Long> durations) {
+        this.durations = durations;
+        long longest = 1;
+        for (Long duration : durations.values()) {
+            longest = Math.max(longest, duration);
+        }
+        this.unknownTestClassDuration = longest;
+    }
+
+    public Set<String> getTestClasses() {
+        return durations.keySet();
+    }
+
+    public boolean contains(String testClassName) {
+        return durations.containsKey(testClassName);
+    }
+
+    /**
+     * Returns the previous duration of the given test class, or the expected duration of a test class without one.
+     */
+    public long getExpectedDuration(String testClassName) {
+        Long duration = durations.get(testClassName);
+        return duration == null ? unknownTestClassDuration : Math.max(1, duration);
+    }
+
+    public long getUnknownTestClassDuration() {
+        return unknownTestClassDuration;
+    }
+}
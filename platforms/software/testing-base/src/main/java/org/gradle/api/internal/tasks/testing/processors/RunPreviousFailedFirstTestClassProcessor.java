@@ -20,22 +20,69 @@
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * In order to speed up the development feedback cycle, this class guarantee previous failed test classes
- * to be passed to its delegate first.
+ * to be passed to its delegate first. The other test classes follow longest first, using the durations
+ * of the previous run, so that long test classes don't start last and leave the other processors idle.
+ * Test classes without a previous duration get the same estimate as in {@link MaxNParallelTestClassProcessor},
+ * see {@link PreviousTestClassDurations}, and go before the test classes with the same duration.
+ *
+ * Test classes are passed on as soon as no test class that is still to come can go before them, so that test
+ * workers can start while the remaining test classes are detected. Once all previous failed test classes have been
+ * detected, a test class is passed on once all the test classes of the previous run that are expected to take longer
+ * have been detected. Test classes of the previous run that no longer exist hold back the shorter test classes until
+ * all test classes have been detected.
  */
 public class RunPreviousFailedFirstTestClassProcessor implements TestClassProcessor {
     private final Set<String> previousFailedTestClasses;
+    private final PreviousTestClassDurations previousTestClassDurations;
     private final TestClassProcessor delegate;
-    private final LinkedHashSet<TestClassRunInfo> prioritizedTestClasses = new LinkedHashSet<TestClassRunInfo>();
-    private final LinkedHashSet<TestClassRunInfo> otherTestClasses = new LinkedHashSet<TestClassRunInfo>();
+    private final Set<String> processedTestClasses = new HashSet<String>();
+    private final Set<String> pendingFailedTestClasses;
+    private final List<TestClassRunInfo> heldBackTestClassesWithoutDuration = new ArrayList<TestClassRunInfo>();
+    private final Map<String, TestClassRunInfo> heldBackTestClassesWithDuration = new HashMap<String, TestClassRunInfo>();
+    private final List<String> previousTestClassesLongestFirst;
+    private int nextPreviousTestClass;
 
     public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, TestClassProcessor delegate) {
+        this(previousFailedTestClasses, PreviousTestClassDurations.NONE, delegate);
+    }
+
+    public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, PreviousTestClassDurations previousTestClassDurations, TestClassProcessor delegate) {
         this.previousFailedTestClasses = previousFailedTestClasses;
+        this.previousTestClassDurations = previousTestClassDurations;
         this.delegate = delegate;
+        this.pendingFailedTestClasses = new HashSet<String>(previousFailedTestClasses);
+        this.previousTestClassesLongestFirst = longestFirst(previousTestClassDurations, previousFailedTestClasses);
+    }
+
+    /**
+     * Returns the test classes of the previous run that did not fail, longest first and by name for the same duration.
+     */
+    private static List<String> longestFirst(final PreviousTestClassDurations durations, Set<String> failedTestClasses) {
+        List<String> testClasses = new ArrayList<String>(durations.getTestClasses().size());
+        for (String testClass : durations.getTestClasses()) {
+            if (!failedTestClasses.contains(testClass)) {
+                testClasses.add(testClass);
+            }
+        }
+        Collections.sort(testClasses, new Comparator<String>() {
+            @Override
+            public int compare(String left, String right) {
+                int result = Long.compare(durations.getExpectedDuration(right), durations.getExpectedDuration(left));
+                return result != 0 ? result : left.compareTo(right);
+            }
+        });
+        return testClasses;
     }
 
     @Override
@@ -45,21 +92,52 @@ public void startProcessing(TestResultProcessor resultProcessor) {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        if (previousFailedTestClasses.contains(testClass.getTestClassName())) {
-            prioritizedTestClasses.add(testClass);
+        String testClassName = testClass.getTestClassName();
+        if (!processedTestClasses.add(testClassName)) {
+            return;
+        }
+        if (previousFailedTestClasses.contains(testClassName)) {
+            delegate.processTestClass(testClass);
+            pendingFailedTestClasses.remove(testClassName);
+        } else if (previousTestClassDurations.contains(testClassName)) {
+            heldBackTestClassesWithDuration.put(testClassName, testClass);
         } else {
-            otherTestClasses.add(testClass);
+            heldBackTestClassesWithoutDuration.add(testClass);
+        }
+        if (pendingFailedTestClasses.isEmpty()) {
+            passOnReadyTestClasses(false);
+        }
+    }
+
+    private void passOnReadyTestClasses(boolean allTestClassesDetected) {
+        while (true) {
+            // Test classes without a previous duration go before the test classes of the previous run that are not expected to take longer
+            boolean noLongerTestClassToCome = nextPreviousTestClass == previousTestClassesLongestFirst.size()
+                || previousTestClassDurations.getExpectedDuration(previousTestClassesLongestFirst.get(nextPreviousTestClass)) <= previousTestClassDurations.getUnknownTestClassDuration();
+            if (noLongerTestClassToCome) {
+                for (TestClassRunInfo testClass : heldBackTestClassesWithoutDuration) {
+                    delegate.processTestClass(testClass);
+                }
+                heldBackTestClassesWithoutDuration.clear();
+            }
+            if (nextPreviousTestClass == previousTestClassesLongestFirst.size()) {
+                return;
+            }
+            TestClassRunInfo testClass = heldBackTestClassesWithDuration.remove(previousTestClassesLongestFirst.get(nextPreviousTestClass));
+            if (testClass != null) {
+                delegate.processTestClass(testClass);
+            } else if (!allTestClassesDetected) {
+                // Not detected yet, so the shorter test classes have to wait
+                return;
+            }
+            nextPreviousTestClass++;
         }
     }
 
     @Override
     public void stop() {
-        for (TestClassRunInfo test : prioritizedTestClasses) {
-            delegate.processTestClass(test);
-        }
-        for (TestClassRunInfo test : otherTestClasses) {
-            delegate.processTestClass(test);
-        }
+        // All test classes have been detected, so the ones that are still missing no longer exist
+        passOnReadyTestClasses(true);
         delegate.stop();
     }
 
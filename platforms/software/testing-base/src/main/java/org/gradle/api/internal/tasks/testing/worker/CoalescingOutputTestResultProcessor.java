@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines consecutive output events of the same test and destination into a single event, so that a test writing many
+ * lines does not cost a message to the build process for every line. Buffered output is passed on before any other event,
+ * so the order of the events is kept, and also when it grows large or has been waiting for the next flush interval.
+ */
+class CoalescingOutputTestResultProcessor implements TestResultProcessor, Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingOutputTestResultProcessor.class);
+    static final int MAX_BUFFERED_CHARS = 64 * 1024;
+
+    private final TestResultProcessor delegate;
+    private final ScheduledFuture<?> scheduledFlush;
+    private final Object lock = new Object();
+    private final StringBuilder bufferedOutput = new StringBuilder();
+    private Object bufferedTestId;
+    private TestOutputEvent.Destination bufferedDestination;
+    private boolean stopped;
+
+    CoalescingOutputTestResultProcessor(TestResultProcessor delegate, ScheduledExecutorService executor, long flushIntervalMs) {
+        this.delegate = delegate;
+        this.scheduledFlush = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (Throwable t) {
+                    // this class is used as task in a scheduled executor service, so it must not throw any throwable,
+                    // otherwise the further invocations of this task get automatically and silently cancelled
+                    LOGGER.debug("Exception while sending test output", t);
+                }
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        synchronized (lock) {
+            flushBufferedOutput();
+            delegate.started(test, event);
+        }
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        synchronized (lock) {
+            flushBufferedOutput();
+            delegate.completed(testId, event);
+        }
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        synchronized (lock) {
+            if (bufferedTestId != null && (!bufferedTestId.equals(testId) || bufferedDestination != event.getDestination())) {
+                flushBufferedOutput();
+            }
+            bufferedTestId = testId;
+            bufferedDestination = event.getDestination();
+            bufferedOutput.append(event.getMessage());
+            if (stopped || bufferedOutput.length() >= MAX_BUFFERED_CHARS) {
+                flushBufferedOutput();
+            }
+        }
+    }
+
+    @Override
+    public void failure(Object testId, TestFailure result) {
+        synchronized (lock) {
+            flushBufferedOutput();
+            delegate.failure(testId, result);
+        }
+    }
+
+    public void flush() {
+        synchronized (lock) {
+            flushBufferedOutput();
+        }
+    }
+
+    private void flushBufferedOutput() {
+        if (bufferedTestId != null) {
+            Object testId = bufferedTestId;
+            TestOutputEvent event = new DefaultTestOutputEvent(bufferedDestination, bufferedOutput.toString());
+            bufferedTestId = null;
+            bufferedDestination = null;
+            bufferedOutput.setLength(0);
+            delegate.output(testId, event);
+        }
+    }
+
+    /**
+     * Passes on any buffered output and stops the regular flushes.
+     */
+    @Override
+    public void stop() {
+        scheduledFlush.cancel(false);
+        synchronized (lock) {
+            stopped = true;
+            flushBufferedOutput();
+        }
+    }
+}
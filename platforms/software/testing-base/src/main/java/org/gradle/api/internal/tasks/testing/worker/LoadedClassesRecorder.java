@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the classes that the test worker loads from directories, and which of them had been loaded when each test class
+ * completed, for test impact analysis. The classes are seen by a transformer installed into the instrumentation agent shipped
+ * with Gradle, so the test worker has to be started with that agent.
+ *
+ * <p>The record is written when the worker stops, to a file named after the worker in the directory given by
+ * {@link #OUTPUT_DIR_SYS_PROPERTY}. It has a line {@code C <class name>} for each loaded class and a line
+ * {@code T <test class name>} for each completed test class, in the order they happened. A test class depends on all the
+ * classes loaded before it completed, including those loaded by test classes that ran earlier in the same worker.</p>
+ */
+public class LoadedClassesRecorder implements TestResultProcessor, Stoppable {
+    public static final String OUTPUT_DIR_SYS_PROPERTY = "org.gradle.internal.test.impact-analysis.dir";
+    public static final String LOADED_CLASS_PREFIX = "C ";
+    public static final String COMPLETED_TEST_CLASS_PREFIX = "T ";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadedClassesRecorder.class);
+    private static final String AGENT_CLASS_NAME = "org.gradle.instrumentation.agent.Agent";
+
+    private final TestResultProcessor delegate;
+    private final File outputFile;
+    private final Map<Object, String> runningTestClasses = new HashMap<Object, String>();
+    // Guarded by this, classes are loaded by any thread
+    private final List<String> events = new ArrayList<String>();
+    private boolean stopped;
+
+    LoadedClassesRecorder(TestResultProcessor delegate, File outputFile) {
+        this.delegate = delegate;
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Starts recording the loaded classes when the test worker was asked to, returns {@code null} otherwise.
+     */
+    @Nullable
+    public static LoadedClassesRecorder maybeStart(TestResultProcessor delegate) {
+        String outputDir = System.getProperty(OUTPUT_DIR_SYS_PROPERTY);
+        if (outputDir == null) {
+            return null;
+        }
+        final LoadedClassesRecorder recorder = new LoadedClassesRecorder(delegate, new File(outputDir, System.getProperty(TestWorker.WORKER_ID_SYS_PROPERTY) + ".txt"));
+        ClassFileTransformer transformer = new ClassFileTransformer() {
+            @Override
+            public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+                if (className != null && classBeingRedefined == null && isLoadedFromDirectory(protectionDomain)) {
+                    recorder.classLoaded(className.replace('/', '.'));
+                }
+                // Leave the class as it is
+                return null;
+            }
+        };
+        if (!installTransformer(transformer)) {
+            LOGGER.warn("Could not record the loaded classes for test impact analysis, the instrumentation agent is not applied to the test worker.");
+            return null;
+        }
+        return recorder;
+    }
+
+    private static boolean installTransformer(ClassFileTransformer transformer) {
+        try {
+            Class<?> agentClass = ClassLoader.getSystemClassLoader().loadClass(AGENT_CLASS_NAME);
+            Method installTransformer = agentClass.getMethod("installTransformer", ClassFileTransformer.class);
+            return (Boolean) installTransformer.invoke(null, transformer);
+        } catch (Exception e) {
+            LOGGER.debug("Could not install the class file transformer.", e);
+            return false;
+        }
+    }
+
+    private static boolean isLoadedFromDirectory(@Nullable ProtectionDomain protectionDomain) {
+        if (protectionDomain == null) {
+            return false;
+        }
+        CodeSource codeSource = protectionDomain.getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return false;
+        }
+        URL location = codeSource.getLocation();
+        return "file".equals(location.getProtocol()) && location.getPath().endsWith("/");
+    }
+
+    synchronized void classLoaded(String className) {
+        if (!stopped) {
+            events.add(LOADED_CLASS_PREFIX + className);
+        }
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        if (test.isComposite() && test.getClassName() != null) {
+            synchronized (this) {
+                runningTestClasses.put(test.getId(), test.getClassName());
+            }
+        }
+        delegate.started(test, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        synchronized (this) {
+            String testClassName = runningTestClasses.remove(testId);
+            if (testClassName != null && !stopped) {
+                events.add(COMPLETED_TEST_CLASS_PREFIX + testClassName);
+            }
+        }
+        delegate.completed(testId, event);
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        delegate.output(testId, event);
+    }
+
+    @Override
+    public void failure(Object testId, TestFailure result) {
+        delegate.failure(testId, result);
+    }
+
+    /**
+     * Stops recording and writes the record.
+     */
+    @Override
+    public void stop() {
+        List<String> recordedEvents;
+        synchronized (this) {
+            stopped = true;
+            recordedEvents = new ArrayList<String>(events);
+        }
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), Charset.forName("UTF-8")));
+            try {
+                for (String event : recordedEvents) {
+                    writer.write(event);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            // Without the record, the test classes of this worker run again the next time
+            LOGGER.warn("Could not write the loaded classes for test impact analysis to " + outputFile + ".", e);
+        }
+    }
+}
@@ -64,11 +64,13 @@ private enum State { INITIALIZING, STARTED, STOPPED }
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     public static final String WORKER_TMPDIR_SYS_PROPERTY = "org.gradle.internal.worker.tmpdir";
     private static final String WORK_THREAD_NAME = "Test worker";
+    private static final long OUTPUT_FLUSH_INTERVAL_MS = 100;
 
     private final WorkerTestClassProcessorFactory factory;
     private final BlockingQueue<Runnable> runQueue = new ArrayBlockingQueue<Runnable>(1);
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private CoalescingOutputTestResultProcessor resultProcessor;
+    private LoadedClassesRecorder loadedClassesRecorder;
 
     /**
      * Note that the state object is not synchronized and not thread-safe.  Any modifications to the
@@ -120,6 +122,9 @@ public void execute(final WorkerProcessContext workerProcessContext) {
                     LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
                 }
             }
+            if (resultProcessor != null) {
+                resultProcessor.stop();
+            }
             testServices.close();
         }
     }
@@ -145,7 +150,9 @@ private void startReceivingTests(WorkerProcessContext workerProcessContext, Serv
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        ExecutorFactory executorFactory = testServices.get(ExecutorFactory.class);
+        this.resultProcessor = new CoalescingOutputTestResultProcessor(serverConnection.addOutgoing(TestResultProcessor.class),
+                executorFactory.createScheduled("Test output flusher", 1), OUTPUT_FLUSH_INTERVAL_MS);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -158,7 +165,8 @@ public void run() {
                 if (state != State.INITIALIZING) {
                     throw new IllegalStateException("A command to start processing has already been received");
                 }
-                processor.startProcessing(resultProcessor);
+                loadedClassesRecorder = LoadedClassesRecorder.maybeStart(resultProcessor);
+                processor.startProcessing(loadedClassesRecorder != null ? loadedClassesRecorder : resultProcessor);
                 state = State.STARTED;
             }
         });
@@ -192,6 +200,10 @@ public void run() {
                 try {
                     processor.stop();
                 } finally {
+                    if (loadedClassesRecorder != null) {
+                        loadedClassesRecorder.stop();
+                    }
+                    resultProcessor.stop();
                     state = State.STOPPED;
                     // Clean the interrupted status
                     // because some test class processors do work here, e.g. JUnitPlatform
@@ -98,6 +98,46 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads output of test classes written interleaved with other test classes"() {
+        when:
+        def writer = output.writer()
+        (1..100).each {
+            writer.onOutput(1, 1, output(StdOut, "[a-$it]"))
+            writer.onOutput(2, 1, output(StdOut, "[b-$it]" * 1000))
+            writer.onOutput(1, 2, output(StdOut, "[c-$it]"))
+            writer.onOutput(1, output(StdOut, "[d-$it]"))
+        }
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == (1..100).collect { "[a-$it]" }.join()
+        collectOutput(reader, 1, 2, StdOut) == (1..100).collect { "[c-$it]" }.join()
+        collectOutput(reader, 1, StdOut) == (1..100).collect { "[d-$it]" }.join()
+        collectAllOutput(reader, 1, StdOut) == (1..100).collect { "[a-$it][c-$it][d-$it]" }.join()
+        collectAllOutput(reader, 2, StdOut) == (1..100).collect { "[b-$it]" * 1000 }.join()
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reads output larger than the read buffer with multi-byte characters"() {
+        def message = "x" + ("\u00e9\u4e2d\ud83d\ude00" * 10000)
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.onOutput(1, 1, output(StdOut, "[out]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == message + "[out]"
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
@@ -16,9 +16,12 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.internal.actor.Actor
 import org.gradle.internal.actor.ActorFactory
 import spock.lang.Specification
@@ -168,6 +171,178 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.processTestClass(test)
     }
 
+    def assignsTestClassesToProcessorWithLeastExpectedWork() {
+        def balancingProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, new PreviousTestClassDurations([Long: 100L, Short1: 10L, Short2: 10L, Short3: 10L]), false)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        balancingProcessor.startProcessing(resultProcessor)
+        2 * factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        2 * actorFactory.createActor(_) >>> [actor1, actor2]
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+
+        when:
+        ['Long', 'Short1', 'Short2', 'Short3', 'Unknown'].each { balancingProcessor.processTestClass(testClass(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'Long' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Short1' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Short2' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Short3' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Unknown' })
+    }
+
+    def "ordering longest first and assigning by expected work finishes earlier than round-robin"() {
+        def durations = [Long1: 60L, Short1: 10L, Long2: 60L, Short2: 10L, Short3: 10L, Short4: 10L]
+        def detectionOrder = ['Long1', 'Short1', 'Long2', 'Short2', 'Short3', 'Short4']
+        def previousTestClassDurations = new PreviousTestClassDurations(durations)
+
+        when:
+        def roundRobin = assignments(PreviousTestClassDurations.NONE, detectionOrder, false)
+        def balanced = assignments(previousTestClassDurations, detectionOrder, true)
+
+        then:
+        roundRobin == [['Long1', 'Long2', 'Short3'], ['Short1', 'Short2', 'Short4']]
+        makespan(roundRobin, durations) == 130
+        balanced == [['Long1', 'Short1', 'Short3'], ['Long2', 'Short2', 'Short4']]
+        makespan(balanced, durations) == 80
+    }
+
+    private List<List<String>> assignments(PreviousTestClassDurations previousTestClassDurations, List<String> detectionOrder, boolean longestFirst) {
+        List<List<String>> assigned = []
+        def recordingFactory = {
+            def processorAssignments = []
+            assigned << processorAssignments
+            [startProcessing: {}, processTestClass: { TestClassRunInfo testClass -> processorAssignments << testClass.testClassName }, stop: {}, stopNow: {}] as TestClassProcessor
+        } as Factory<TestClassProcessor>
+        TestClassProcessor processor = new MaxNParallelTestClassProcessor(2, recordingFactory, directActorFactory(), previousTestClassDurations, false)
+        if (longestFirst) {
+            processor = new RunPreviousFailedFirstTestClassProcessor([] as Set, previousTestClassDurations, processor)
+        }
+        processor.startProcessing(Stub(TestResultProcessor))
+        detectionOrder.each { processor.processTestClass(testClass(it)) }
+        processor.stop()
+        return assigned
+    }
+
+    def "gives a processor the next test class when it reports that its test class has completed"() {
+        def pullingProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, PreviousTestClassDurations.NONE, true)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        TestResultProcessor forkResultProcessor1 = null
+        TestResultProcessor forkResultProcessor2 = null
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        pullingProcessor.startProcessing(resultProcessor)
+        2 * factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        2 * actorFactory.createActor(_) >>> [actor1, actor2]
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor1.startProcessing(_) >> { TestResultProcessor processor -> forkResultProcessor1 = processor }
+        1 * asyncProcessor2.startProcessing(_) >> { TestResultProcessor processor -> forkResultProcessor2 = processor }
+
+        when:
+        ['A', 'B', 'C', 'D'].each { pullingProcessor.processTestClass(testClass(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'A' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'B' })
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        def descriptorB = new DefaultTestClassDescriptor(1, 'B')
+        forkResultProcessor2.started(descriptorB, new TestStartEvent(0))
+        forkResultProcessor2.completed(1, new TestCompleteEvent(10))
+
+        then:
+        1 * asyncResultProcessor.started(descriptorB, _)
+        1 * asyncResultProcessor.completed(1, _)
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'C' })
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        def descriptorA = new DefaultTestClassDescriptor(2, 'A')
+        forkResultProcessor1.started(descriptorA, new TestStartEvent(0))
+        forkResultProcessor1.completed(2, new TestCompleteEvent(20))
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'D' })
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        pullingProcessor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+    }
+
+    def "pulling test classes finishes earlier than assigning them up front when the previous durations are not known"() {
+        def durations = [Slow: 60L, A: 10L, B: 10L, C: 10L, D: 10L, E: 10L]
+        def detectionOrder = ['Slow', 'A', 'B', 'C', 'D', 'E']
+
+        expect:
+        simulatedMakespan(false, durations, detectionOrder) == 80
+        simulatedMakespan(true, durations, detectionOrder) == 60
+    }
+
+    /**
+     * Runs the test classes given to each processor one after the other, taking the given durations, and reports
+     * the completion of each test class. Returns the time when the last processor finishes.
+     */
+    private long simulatedMakespan(boolean pullTestClasses, Map<String, Long> durations, List<String> detectionOrder) {
+        List<Map> forks = []
+        def simulatingFactory = {
+            def fork = [testClasses: [], resultProcessor: null, finishedAt: 0L]
+            forks << fork
+            [startProcessing: { TestResultProcessor resultProcessor -> fork.resultProcessor = resultProcessor },
+             processTestClass: { TestClassRunInfo testClass -> fork.testClasses << testClass.testClassName },
+             stop: {}, stopNow: {}] as TestClassProcessor
+        } as Factory<TestClassProcessor>
+        def processor = new MaxNParallelTestClassProcessor(2, simulatingFactory, directActorFactory(), PreviousTestClassDurations.NONE, pullTestClasses)
+        processor.startProcessing(Stub(TestResultProcessor))
+        detectionOrder.each { processor.processTestClass(testClass(it)) }
+
+        long id = 0
+        while (forks.any { !it.testClasses.empty }) {
+            def fork = forks.findAll { !it.testClasses.empty }.min { it.finishedAt + durations[it.testClasses[0]] }
+            String testClassName = fork.testClasses.remove(0)
+            fork.finishedAt += durations[testClassName]
+            def descriptor = new DefaultTestClassDescriptor(++id, testClassName)
+            fork.resultProcessor.started(descriptor, new TestStartEvent(0))
+            fork.resultProcessor.completed(descriptor.id, new TestCompleteEvent(fork.finishedAt))
+        }
+        processor.stop()
+        return forks.collect { it.finishedAt }.max()
+    }
+
+    private ActorFactory directActorFactory() {
+        Stub(ActorFactory) {
+            createActor(_) >> { Object target -> Stub(Actor) { getProxy(_) >> target } }
+        }
+    }
+
+    private static long makespan(List<List<String>> assigned, Map<String, Long> durations) {
+        assigned.collect { testClasses -> testClasses.sum { durations[it] } }.max()
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
+
     def "stopNow propagates to factory created processors"() {
         TestClassRunInfo test = Mock()
         TestClassProcessor processor1 = Mock()
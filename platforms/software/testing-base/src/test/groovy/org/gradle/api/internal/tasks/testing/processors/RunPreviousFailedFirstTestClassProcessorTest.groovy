@@ -46,4 +46,111 @@ class RunPreviousFailedFirstTestClassProcessorTest extends Specification {
         then:
         1 * delegate.stop()
     }
+
+    def 'other test classes should be passed to delegate longest first'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor(['Class4'] as Set, new PreviousTestClassDurations([Class1: 10L, Class2: 300L, Class4: 1L]), delegate)
+
+        when:
+        processor.startProcessing(testResultProcessor)
+        ['Class1', 'Class2', 'Class3', 'Class4'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+
+        then:
+        1 * delegate.startProcessing(testResultProcessor)
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class4'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class3'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        then:
+        1 * delegate.stop()
+    }
+
+    def 'test classes are passed to delegate as they are detected when there are no previous results'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor([] as Set, PreviousTestClassDurations.NONE, delegate)
+        processor.startProcessing(testResultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        then:
+        1 * delegate.stop()
+    }
+
+    def 'test classes are passed to delegate as soon as all longer test classes of the previous run are detected'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor([] as Set, new PreviousTestClassDurations([Class1: 10L, Class2: 300L, Class3: 20L]), delegate)
+        processor.startProcessing(testResultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('NewClass'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('NewClass'))
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        0 * delegate.processTestClass(_)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class2'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        0 * delegate.processTestClass(_)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class3'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class3'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate.stop()
+    }
+
+    def 'test classes of the previous run that no longer exist hold back shorter test classes until stopped'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor(['Deleted1'] as Set, new PreviousTestClassDurations([Class1: 10L, Deleted2: 300L]), delegate)
+        processor.startProcessing(testResultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        processor.processTestClass(new DefaultTestClassRunInfo('NewClass'))
+
+        then:
+        0 * delegate.processTestClass(_)
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('NewClass'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        then:
+        1 * delegate.stop()
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class CoalescingOutputTestResultProcessorTest extends Specification {
+    def delegate = Mock(TestResultProcessor)
+    Runnable scheduledFlush
+    def executor = Stub(ScheduledExecutorService) {
+        scheduleAtFixedRate(_, _, _, _) >> { args ->
+            scheduledFlush = args[0]
+            Stub(ScheduledFuture)
+        }
+    }
+    def processor = new CoalescingOutputTestResultProcessor(delegate, executor, 100)
+
+    def "combines consecutive output of the same test and destination"() {
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdOut, "line 1\n"))
+        processor.output("test", new DefaultTestOutputEvent(StdOut, "line 2\n"))
+
+        then:
+        0 * delegate._
+
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdErr, "error\n"))
+        processor.output("other", new DefaultTestOutputEvent(StdErr, "other\n"))
+
+        then:
+        1 * delegate.output("test", new DefaultTestOutputEvent(StdOut, "line 1\nline 2\n"))
+        then:
+        1 * delegate.output("test", new DefaultTestOutputEvent(StdErr, "error\n"))
+        0 * delegate._
+
+        when:
+        scheduledFlush.run()
+
+        then:
+        1 * delegate.output("other", new DefaultTestOutputEvent(StdErr, "other\n"))
+        0 * delegate._
+    }
+
+    def "passes on buffered output before other events"() {
+        def completeEvent = new TestCompleteEvent(0)
+
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdOut, "line\n"))
+        processor.completed("test", completeEvent)
+
+        then:
+        1 * delegate.output("test", new DefaultTestOutputEvent(StdOut, "line\n"))
+        then:
+        1 * delegate.completed("test", completeEvent)
+    }
+
+    def "passes on output once it grows large"() {
+        def line = "x" * 1000 + "\n"
+        def lineCount = CoalescingOutputTestResultProcessor.MAX_BUFFERED_CHARS.intdiv(line.length()) + 1
+
+        when:
+        lineCount.times { processor.output("test", new DefaultTestOutputEvent(StdOut, line)) }
+
+        then:
+        1 * delegate.output("test", new DefaultTestOutputEvent(StdOut, line * lineCount))
+    }
+
+    def "passes on output directly once stopped"() {
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdOut, "before\n"))
+        processor.stop()
+
+        then:
+        1 * delegate.output("test", new DefaultTestOutputEvent(StdOut, "before\n"))
+
+        when:
+        processor.output("test", new DefaultTestOutputEvent(StdOut, "after\n"))
+
+        then:
+        1 * delegate.output("test", new DefaultTestOutputEvent(StdOut, "after\n"))
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class LoadedClassesRecorderTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider(getClass())
+
+    def delegate = Mock(TestResultProcessor)
+    def outputFile = temp.file("worker.txt")
+    def recorder = new LoadedClassesRecorder(delegate, outputFile)
+
+    def "records the classes loaded before each test class completed"() {
+        def testClass1 = new DefaultTestClassDescriptor(1, "org.Test1")
+        def testMethod = new DefaultTestDescriptor(2, "org.Test1", "test")
+        def testClass2 = new DefaultTestClassDescriptor(3, "org.Test2")
+
+        when:
+        recorder.classLoaded("org.Test1")
+        recorder.started(testClass1, new TestStartEvent(0))
+        recorder.started(testMethod, new TestStartEvent(0, 1))
+        recorder.classLoaded("org.Class1")
+        recorder.completed(2, new TestCompleteEvent(0))
+        recorder.completed(1, new TestCompleteEvent(0))
+        recorder.classLoaded("org.Test2")
+        recorder.started(testClass2, new TestStartEvent(0))
+        recorder.completed(3, new TestCompleteEvent(0))
+        recorder.stop()
+        recorder.classLoaded("org.LoadedAfterStop")
+
+        then:
+        outputFile.readLines() == ["C org.Test1", "C org.Class1", "T org.Test1", "C org.Test2", "T org.Test2"]
+    }
+
+    def "forwards all events to the delegate"() {
+        def testClass = new DefaultTestClassDescriptor(1, "org.Test1")
+        def startEvent = new TestStartEvent(0)
+        def completeEvent = new TestCompleteEvent(0)
+
+        when:
+        recorder.started(testClass, startEvent)
+        recorder.completed(1, completeEvent)
+
+        then:
+        1 * delegate.started(testClass, startEvent)
+        1 * delegate.completed(1, completeEvent)
+    }
+
+    def "does not record without an output directory"() {
+        expect:
+        System.getProperty(LoadedClassesRecorder.OUTPUT_DIR_SYS_PROPERTY) == null
+        LoadedClassesRecorder.maybeStart(delegate) == null
+    }
+}
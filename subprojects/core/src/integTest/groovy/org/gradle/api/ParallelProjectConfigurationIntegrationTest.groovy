@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import spock.lang.Timeout
+
+import static org.hamcrest.CoreMatchers.startsWith
+
+@Timeout(120)
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+    def projects = (1..10).collect { "p$it" }
+
+    def setup() {
+        createDirs(*projects)
+        settingsFile << """
+            rootProject.name = 'root'
+            include ${projects.collect { "'$it'" }.join(", ")}
+        """
+        executer.withArguments("--parallel", "-Dorg.gradle.internal.parallel-project-configuration=true")
+    }
+
+    def "subprojects that write to the root project are configured one at a time"() {
+        buildFile << """
+            ext.configuring = new java.util.concurrent.atomic.AtomicInteger()
+            ext.configured = []
+
+            gradle.projectsEvaluated {
+                println "configured: " + configured.sort()
+            }
+        """
+        projects.each {
+            file("$it/build.gradle") << """
+                def configuring = rootProject.configuring
+                assert configuring.incrementAndGet() == 1
+                Thread.sleep(20)
+                rootProject.configured << project.name
+                rootProject.tasks.register("from\${project.name.capitalize()}")
+                assert configuring.decrementAndGet() == 0
+            """
+        }
+
+        when:
+        run("help")
+
+        then:
+        outputContains("configured: ${projects.sort()}")
+    }
+
+    def "project can depend on the evaluation of a sibling that accesses other projects"() {
+        file("p1/build.gradle") << """
+            evaluationDependsOn(':p2')
+            println "p2 value: " + project(':p2').value
+        """
+        file("p2/build.gradle") << """
+            ext.value = project(':p3').name
+        """
+
+        when:
+        run("help")
+
+        then:
+        outputContains("p2 value: p3")
+    }
+
+    def "reports evaluationDependsOn cycle between projects configured in parallel"() {
+        file("p1/build.gradle") << """
+            evaluationDependsOn(':p2')
+        """
+        file("p2/build.gradle") << """
+            evaluationDependsOn(':p1')
+        """
+
+        when:
+        fails("help")
+
+        then:
+        failure.assertThatCause(startsWith("Circular referencing during evaluation for project ':p"))
+    }
+}
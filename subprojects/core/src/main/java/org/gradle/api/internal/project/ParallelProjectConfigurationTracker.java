@@ -0,0 +1,177 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Coordinates the projects that are configured in parallel.
+ *
+ * <p>A project is configured in parallel with other projects until its build logic accesses some other project, including its
+ * parent and the root project. Such an access is reported by the cross project model access before the other project is touched.
+ * The project then waits until no other project is being configured, and finishes its configuration while the configuration of
+ * any other project is held back, the same way as when projects are configured serially.</p>
+ *
+ * <p>When the project holding this exclusive access accesses a project that is waiting for it, the exclusive access is handed
+ * over until the configuration of the waiting project has finished, so that the build logic of the two projects never runs at
+ * the same time.</p>
+ */
+@ServiceScope(Scopes.BuildTree.class)
+public class ParallelProjectConfigurationTracker {
+    private static final Logger LOGGER = Logging.getLogger(ParallelProjectConfigurationTracker.class);
+
+    private final ProjectLeaseRegistry projectLeaseRegistry;
+    private final ThreadLocal<ParallelConfiguration> currentConfiguration = new ThreadLocal<>();
+    private final Set<ProjectState> conflicting = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    // The remaining state is guarded by lock
+    private int runningInParallel;
+    private final Deque<ProjectState> exclusiveOwners = new ArrayDeque<>();
+    private final Set<ProjectState> waitingForExclusiveAccess = new TreeSet<>(ProjectOrderingUtil::compare);
+
+    public ParallelProjectConfigurationTracker(ProjectLeaseRegistry projectLeaseRegistry) {
+        this.projectLeaseRegistry = projectLeaseRegistry;
+    }
+
+    /**
+     * Runs the configuration of the given project, in parallel with other projects until it accesses some other project.
+     */
+    public void configureInParallel(ProjectState project, Runnable configuration) {
+        ParallelConfiguration parallelConfiguration = new ParallelConfiguration(project);
+        await(() -> {
+            if (exclusiveOwners.isEmpty() && waitingForExclusiveAccess.isEmpty()) {
+                runningInParallel++;
+                return true;
+            }
+            return false;
+        });
+        currentConfiguration.set(parallelConfiguration);
+        try {
+            configuration.run();
+        } finally {
+            currentConfiguration.remove();
+            synchronized (lock) {
+                if (parallelConfiguration.exclusive) {
+                    exclusiveOwners.remove(project);
+                } else {
+                    runningInParallel--;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Notified when the build logic of the {@code referrer} project is about to access the {@code target} project.
+     */
+    public void onProjectReference(ProjectState referrer, ProjectState target) {
+        ParallelConfiguration configuration = currentConfiguration.get();
+        if (configuration == null || referrer == target) {
+            return;
+        }
+        if (!configuration.exclusive) {
+            if (conflicting.add(configuration.project)) {
+                LOGGER.info("{} accessed {} while being configured in parallel, it will be configured serially.", configuration.project.getDisplayName(), target.getDisplayName());
+            }
+            acquireExclusiveAccess(configuration.project);
+            configuration.exclusive = true;
+        }
+        maybeHandOverExclusiveAccess(configuration.project, target);
+    }
+
+    /**
+     * Returns true when the given project accessed some other project while it was configured in parallel.
+     */
+    public boolean hasConflict(ProjectState project) {
+        return conflicting.contains(project);
+    }
+
+    private void acquireExclusiveAccess(ProjectState project) {
+        synchronized (lock) {
+            runningInParallel--;
+            waitingForExclusiveAccess.add(project);
+            lock.notifyAll();
+        }
+        await(() -> {
+            if (exclusiveOwners.peek() == project) {
+                // Handed over by the current owner
+                return true;
+            }
+            if (exclusiveOwners.isEmpty() && runningInParallel == 0 && waitingForExclusiveAccess.iterator().next() == project) {
+                waitingForExclusiveAccess.remove(project);
+                exclusiveOwners.push(project);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void maybeHandOverExclusiveAccess(ProjectState owner, ProjectState target) {
+        synchronized (lock) {
+            if (!waitingForExclusiveAccess.remove(target)) {
+                return;
+            }
+            exclusiveOwners.push(target);
+            lock.notifyAll();
+        }
+        await(() -> exclusiveOwners.peek() == owner);
+    }
+
+    /**
+     * Waits until the given condition, which is evaluated while holding the lock, is true. Releases the project locks and
+     * the worker lease of the current thread while waiting.
+     */
+    private void await(BooleanSupplier condition) {
+        synchronized (lock) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+        }
+        projectLeaseRegistry.blocking(() -> {
+            synchronized (lock) {
+                while (!condition.getAsBoolean()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            }
+        });
+    }
+
+    private static class ParallelConfiguration {
+        private final ProjectState project;
+        private boolean exclusive;
+
+        private ParallelConfiguration(ProjectState project) {
+            this.project = project;
+        }
+    }
+}
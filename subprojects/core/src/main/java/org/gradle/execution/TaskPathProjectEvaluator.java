@@ -18,15 +18,35 @@
 
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.Project;
+import org.gradle.api.internal.project.ParallelProjectConfigurationTracker;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectState;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.buildtree.BuildModelParameters;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
     private final BuildCancellationToken cancellationToken;
+    private final BuildModelParameters buildModelParameters;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ParallelProjectConfigurationTracker parallelConfigurationTracker;
 
-    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken) {
+    public TaskPathProjectEvaluator(
+        BuildCancellationToken cancellationToken,
+        BuildModelParameters buildModelParameters,
+        BuildOperationExecutor buildOperationExecutor,
+        ParallelProjectConfigurationTracker parallelConfigurationTracker
+    ) {
         this.cancellationToken = cancellationToken;
+        this.buildModelParameters = buildModelParameters;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.parallelConfigurationTracker = parallelConfigurationTracker;
     }
 
     @Override
@@ -46,8 +66,63 @@ public void configureFully(ProjectState projectState) {
     @Override
     public void configureHierarchy(ProjectInternal project) {
         configure(project);
+        if (buildModelParameters.isParallelProjectConfiguration()) {
+            configureSubprojectsInParallel(project.getOwner());
+        } else {
+            configureSubprojects(project);
+        }
+    }
+
+    private void configureSubprojects(ProjectInternal project) {
         for (Project sub : project.getSubprojects()) {
             configure((ProjectInternal) sub);
         }
     }
+
+    /**
+     * Configures the subprojects one level of the hierarchy at a time, so that each project is configured after its parent.
+     * A project that accessed some other project while being configured is configured serially, and so are its own subprojects.
+     */
+    private void configureSubprojectsInParallel(ProjectState project) {
+        List<ProjectState> wave = new ArrayList<>(project.getChildProjects());
+        while (!wave.isEmpty()) {
+            if (cancellationToken.isCancellationRequested()) {
+                throw new BuildCancelledException();
+            }
+            List<ProjectState> currentWave = wave;
+            buildOperationExecutor.runAllWithAccessToProjectState(queue -> {
+                for (ProjectState child : currentWave) {
+                    queue.add(new ConfigureProjectInParallel(child));
+                }
+            });
+
+            List<ProjectState> nextWave = new ArrayList<>();
+            for (ProjectState child : currentWave) {
+                if (parallelConfigurationTracker.hasConflict(child)) {
+                    configureSubprojects(child.getMutableModel());
+                } else {
+                    nextWave.addAll(child.getChildProjects());
+                }
+            }
+            wave = nextWave;
+        }
+    }
+
+    private class ConfigureProjectInParallel implements RunnableBuildOperation {
+        private final ProjectState project;
+
+        private ConfigureProjectInParallel(ProjectState project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            parallelConfigurationTracker.configureInParallel(project, () -> project.applyToMutableState(p -> project.ensureConfigured()));
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure " + project.getDisplayName() + " in parallel");
+        }
+    }
 }
@@ -30,6 +30,7 @@ public class BuildModelParameters {
     private final boolean intermediateModelCache;
     private final boolean parallelToolingApiActions;
     private final boolean invalidateCoupledProjects;
+    private final boolean parallelProjectConfiguration;
     private final LogLevel configurationCacheLogLevel;
 
     public BuildModelParameters(
@@ -41,6 +42,7 @@ public BuildModelParameters(
         boolean intermediateModelCache,
         boolean parallelToolingApiActions,
         boolean invalidateCoupledProjects,
+        boolean parallelProjectConfiguration,
         LogLevel configurationCacheLogLevel
     ) {
         this.parallelProjectExecution = parallelProjectExecution;
@@ -51,6 +53,7 @@ public BuildModelParameters(
         this.intermediateModelCache = intermediateModelCache;
         this.parallelToolingApiActions = parallelToolingApiActions;
         this.invalidateCoupledProjects = invalidateCoupledProjects;
+        this.parallelProjectConfiguration = parallelProjectConfiguration;
         this.configurationCacheLogLevel = configurationCacheLogLevel;
     }
 
@@ -105,4 +108,12 @@ public boolean isParallelToolingApiActions() {
     public boolean isInvalidateCoupledProjects() {
         return invalidateCoupledProjects;
     }
+
+    /**
+     * When {@link #isParallelProjectExecution()} is true and {@link #isIsolatedProjects()} is false, should the projects of the hierarchy be configured in parallel?
+     * Projects are configured parent-first, and a project whose build logic reaches into other projects has its subprojects configured serially.
+     */
+    public boolean isParallelProjectConfiguration() {
+        return parallelProjectConfiguration;
+    }
 }
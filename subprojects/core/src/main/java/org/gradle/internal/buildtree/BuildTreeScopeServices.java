@@ -28,6 +28,7 @@
 import org.gradle.api.internal.model.DefaultObjectFactory;
 import org.gradle.api.internal.model.NamedObjectInstantiator;
 import org.gradle.api.internal.project.DefaultProjectStateRegistry;
+import org.gradle.api.internal.project.ParallelProjectConfigurationTracker;
 import org.gradle.api.internal.project.taskfactory.TaskIdentityFactory;
 import org.gradle.api.internal.provider.DefaultConfigurationTimeBarrier;
 import org.gradle.api.internal.provider.PropertyFactory;
@@ -101,6 +102,7 @@ protected void configure(ServiceRegistration registration, List<PluginServiceReg
         registration.add(DefaultProjectStateRegistry.class);
         registration.add(DefaultConfigurationTimeBarrier.class);
         registration.add(DeprecationsReporter.class);
+        registration.add(ParallelProjectConfigurationTracker.class);
         registration.add(TaskPathProjectEvaluator.class);
         registration.add(DefaultFeatureFlags.class);
         registration.add(DefaultProblemLocationAnalyzer.class);
@@ -19,6 +19,7 @@
 import com.google.common.hash.Hashing;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
@@ -29,12 +30,17 @@
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 @ServiceScope(Scopes.UserHome.class)
@@ -65,7 +71,9 @@ private void buildJar(File jarFile, Action action) throws IOException {
             Files.createDirectories(parentDir.toPath());
             try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE))) {
                 outputStream.setLevel(0);
-                action.execute(new ZipEntryBuilder(outputStream));
+                try (ZipEntryBuilder builder = new ZipEntryBuilder(outputStream)) {
+                    action.execute(builder);
+                }
             }
             Files.move(tmpFile.toPath(), jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         } finally {
@@ -82,11 +90,20 @@ default void put(String name, byte[] content) throws IOException {
             put(name, content, CompressionMethod.UNDEFINED);
         }
         void put(String name, byte[] content, CompressionMethod compressionMethod) throws IOException;
+
+        /**
+         * Copies the given entry of the given classpath element unchanged. When the element is a jar file, the entry is copied
+         * without being decompressed and compressed again, where possible.
+         */
+        default void copyFrom(File source, ClasspathEntryVisitor.Entry entry) throws IOException {
+            put(entry.getName(), entry.getContent(), entry.getCompressionMethod());
+        }
     }
 
-    private static class ZipEntryBuilder implements EntryBuilder {
+    private static class ZipEntryBuilder implements EntryBuilder, Closeable {
         private final ZipArchiveOutputStream outputStream;
         private final Set<String> dirs = new HashSet<>();
+        private final Map<File, ZipFile> sourceJars = new HashMap<>();
 
         public ZipEntryBuilder(ZipArchiveOutputStream outputStream) {
             this.outputStream = outputStream;
@@ -103,6 +120,73 @@ public void put(String name, byte[] content, CompressionMethod compressionMethod
             outputStream.closeArchiveEntry();
         }
 
+        @Override
+        public void copyFrom(File source, ClasspathEntryVisitor.Entry entry) throws IOException {
+            ZipArchiveEntry sourceEntry = findRawCopyableEntry(source, entry.getName());
+            if (sourceEntry == null) {
+                EntryBuilder.super.copyFrom(source, entry);
+                return;
+            }
+            maybeAddParent(entry.getName());
+            ZipArchiveEntry zipEntry = newZipEntryWithFixedTime(entry.getName());
+            zipEntry.setMethod(sourceEntry.getMethod());
+            zipEntry.setCrc(sourceEntry.getCrc());
+            zipEntry.setSize(sourceEntry.getSize());
+            zipEntry.setCompressedSize(sourceEntry.getCompressedSize());
+            outputStream.setEncoding("UTF-8");
+            try (InputStream rawContent = sourceJars.get(source).getRawInputStream(sourceEntry)) {
+                outputStream.addRawArchiveEntry(zipEntry, rawContent);
+            }
+        }
+
+        /**
+         * Returns the entry of the source jar that can be copied as is, or null if the source is not a jar or the entry
+         * needs to be unpacked, for example because it uses an unusual compression method or its name is ambiguous.
+         */
+        @Nullable
+        private ZipArchiveEntry findRawCopyableEntry(File source, String name) throws IOException {
+            if (!source.isFile()) {
+                return null;
+            }
+            ZipFile zip = sourceJars.get(source);
+            if (zip == null) {
+                if (sourceJars.containsKey(source)) {
+                    return null;
+                }
+                try {
+                    zip = new ZipFile(source);
+                } catch (IOException e) {
+                    // Not readable as a plain zip file, let the walker deal with it
+                    sourceJars.put(source, null);
+                    return null;
+                }
+                sourceJars.put(source, zip);
+            }
+            Iterator<ZipArchiveEntry> entries = zip.getEntries(name).iterator();
+            if (!entries.hasNext()) {
+                return null;
+            }
+            ZipArchiveEntry entry = entries.next();
+            if (entries.hasNext()) {
+                return null;
+            }
+            boolean knownMethod = entry.getMethod() == ZipArchiveEntry.STORED || entry.getMethod() == ZipArchiveEntry.DEFLATED;
+            if (!knownMethod || !zip.canReadEntryData(entry) || entry.getSize() < 0 || entry.getCompressedSize() < 0 || entry.getCrc() < 0) {
+                return null;
+            }
+            return entry;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (ZipFile zip : sourceJars.values()) {
+                if (zip != null) {
+                    zip.close();
+                }
+            }
+            sourceJars.clear();
+        }
+
         private void maybeAddParent(String name) throws IOException {
             String dir = dir(name);
             if (dir != null && dirs.add(dir)) {
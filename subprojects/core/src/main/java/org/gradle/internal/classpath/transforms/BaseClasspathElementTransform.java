@@ -123,14 +123,14 @@ protected void processManifest(ClasspathBuilder.EntryBuilder builder, ClasspathE
     }
 
     /**
-     * Processes a resource entry. Base class implementation copies the resource unchanged.
+     * Processes a resource entry. Base class implementation copies the resource unchanged, without unpacking it when the source is a JAR.
      *
      * @param builder the builder for the transformed output
      * @param resourceEntry the entry to process
      * @throws IOException if reading or writing entry fails
      */
     protected void processResource(ClasspathBuilder.EntryBuilder builder, ClasspathEntryVisitor.Entry resourceEntry) throws IOException {
-        builder.put(resourceEntry.getName(), resourceEntry.getContent(), resourceEntry.getCompressionMethod());
+        builder.copyFrom(source, resourceEntry);
     }
 
     protected void finishProcessing(ClasspathBuilder.EntryBuilder builder) throws IOException {}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project
+
+import org.gradle.internal.resources.ProjectLeaseRegistry
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.util.Path
+import spock.lang.Timeout
+
+@Timeout(60)
+class ParallelProjectConfigurationTrackerTest extends ConcurrentSpec {
+    Closure onBlocking = {}
+    def projectLeaseRegistry = Stub(ProjectLeaseRegistry) {
+        blocking(_) >> { Runnable action ->
+            onBlocking()
+            action.run()
+        }
+    }
+    def tracker = new ParallelProjectConfigurationTracker(projectLeaseRegistry)
+    def root = project(":", null)
+    def a = project(":a", root)
+    def b = project(":b", root)
+
+    def "records access to a sibling, the parent or the root project while configured in parallel"() {
+        def child = project(":a:child", a)
+
+        when:
+        tracker.configureInParallel(a) {
+            tracker.onProjectReference(a, b)
+        }
+        tracker.configureInParallel(b) {
+            tracker.onProjectReference(b, root)
+        }
+        tracker.configureInParallel(child) {
+            tracker.onProjectReference(child, a)
+        }
+
+        then:
+        tracker.hasConflict(a)
+        tracker.hasConflict(b)
+        tracker.hasConflict(child)
+    }
+
+    def "access to self or from a project that is not configured in parallel is not a conflict"() {
+        when:
+        tracker.onProjectReference(root, a)
+        tracker.configureInParallel(a) {
+            tracker.onProjectReference(a, a)
+        }
+        tracker.onProjectReference(a, b)
+
+        then:
+        !tracker.hasConflict(root)
+        !tracker.hasConflict(a)
+    }
+
+    def "a project that accesses some other project waits until no other project is configured in parallel"() {
+        onBlocking = { instant.bBlocked }
+
+        when:
+        async {
+            start {
+                tracker.configureInParallel(a) {
+                    instant.aStarted
+                    thread.blockUntil.bBlocked
+                    instant.aFinished
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                tracker.configureInParallel(b) {
+                    tracker.onProjectReference(b, root)
+                    instant.bAccessedRoot
+                }
+            }
+        }
+
+        then:
+        instant.bAccessedRoot > instant.aFinished
+        tracker.hasConflict(b)
+        !tracker.hasConflict(a)
+    }
+
+    def "holds back the configuration of other projects while a project that accessed some other project is configured"() {
+        onBlocking = { instant.aBlocked }
+
+        when:
+        async {
+            start {
+                tracker.configureInParallel(b) {
+                    tracker.onProjectReference(b, root)
+                    instant.bAccessedRoot
+                    thread.blockUntil.aBlocked
+                    instant.bFinished
+                }
+            }
+            start {
+                thread.blockUntil.bAccessedRoot
+                tracker.configureInParallel(a) {
+                    instant.aStarted
+                }
+            }
+        }
+
+        then:
+        instant.aStarted > instant.bFinished
+    }
+
+    def "hands exclusive access over to a waiting project that is accessed"() {
+        when:
+        async {
+            start {
+                tracker.configureInParallel(a) {
+                    instant.aStarted
+                    thread.blockUntil.bStarted
+                    tracker.onProjectReference(a, b)
+                    instant.aAccessedB
+                }
+            }
+            start {
+                thread.blockUntil.aStarted
+                tracker.configureInParallel(b) {
+                    instant.bStarted
+                    tracker.onProjectReference(b, root)
+                    tracker.onProjectReference(b, a)
+                    instant.bAccessedRootAndA
+                }
+            }
+        }
+
+        then:
+        instant.aAccessedB > instant.bAccessedRootAndA
+        tracker.hasConflict(a)
+        tracker.hasConflict(b)
+    }
+
+    private ProjectState project(String path, ProjectState parent) {
+        def projectPath = Path.path(path)
+        return Stub(ProjectState) {
+            getParent() >> parent
+            getProjectPath() >> projectPath
+            getDepth() >> projectPath.segmentCount()
+            getDisplayName() >> "project '$path'"
+        }
+    }
+}
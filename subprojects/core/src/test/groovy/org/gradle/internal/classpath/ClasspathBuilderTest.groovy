@@ -107,4 +107,56 @@ class ClasspathBuilderTest extends Specification {
         zip.hasCompression("undefined.txt", ZipEntry.DEFLATED)
         zip.hasCompression("dir/deflated.txt", ZipEntry.DEFLATED)
     }
+
+    def "copies entries of a source jar without unpacking them"() {
+        def source = tmpDir.file("source.zip")
+        builder.jar(source) {
+            it.put("store.txt", "stored bytes".bytes, ClasspathEntryVisitor.Entry.CompressionMethod.STORED)
+            it.put("dir/deflated.txt", "deflated bytes".bytes, ClasspathEntryVisitor.Entry.CompressionMethod.DEFLATED)
+        }
+        def file = tmpDir.file("thing.zip")
+        def storedEntry = Mock(ClasspathEntryVisitor.Entry) { getName() >> "store.txt" }
+        def deflatedEntry = Mock(ClasspathEntryVisitor.Entry) { getName() >> "dir/deflated.txt" }
+
+        when:
+        builder.jar(file) {
+            it.copyFrom(source, storedEntry)
+            it.copyFrom(source, deflatedEntry)
+        }
+
+        then:
+        0 * storedEntry.getContent()
+        0 * deflatedEntry.getContent()
+
+        and:
+        def zip = new ZipTestFixture(file)
+        zip.hasDescendants("store.txt", "dir/deflated.txt")
+        zip.hasDirs("dir")
+        zip.assertFileContent("store.txt", "stored bytes")
+        zip.assertFileContent("dir/deflated.txt", "deflated bytes")
+        zip.hasCompression("store.txt", ZipEntry.STORED)
+        zip.hasCompression("dir/deflated.txt", ZipEntry.DEFLATED)
+    }
+
+    def "copies entries of a source directory by reading their content"() {
+        def source = tmpDir.createDir("source")
+        def file = tmpDir.file("thing.zip")
+        def entry = Mock(ClasspathEntryVisitor.Entry) {
+            getName() >> "a.txt"
+            getCompressionMethod() >> ClasspathEntryVisitor.Entry.CompressionMethod.UNDEFINED
+        }
+
+        when:
+        builder.jar(file) {
+            it.copyFrom(source, entry)
+        }
+
+        then:
+        1 * entry.getContent() >> "bytes".bytes
+
+        and:
+        def zip = new ZipTestFixture(file)
+        zip.hasDescendants("a.txt")
+        zip.assertFileContent("a.txt", "bytes")
+    }
 }